@@ -0,0 +1,73 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.LibraryApiApplication;
+import com.henriqueAraujo.libraryapi.service.index.IndexLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the whole application against a private in-memory H2 database and
+ * loads a synthetic catalog, so the benchmarks run offline against the real
+ * beans. Book n has title "Title n", author "Author n % 100" and isbn
+ * "isbn-n"; the first {@code loans} books are on loan. The in-memory indexes
+ * are rebuilt after the load.
+ */
+public final class BenchmarkContext {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int books, int loans, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        args.add("--server.port=0");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.root=WARN");
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("benchmark")
+                .run(args.toArray(new String[0]));
+
+        load(context.getBean(JdbcTemplate.class), books, Math.min(books, loans));
+        context.getBean(IndexLoader.class).rebuild();
+        return context;
+    }
+
+    private static void load(JdbcTemplate jdbc, int books, int loans) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= books; i++) {
+            rows.add(new Object[]{ "Title " + i, "Author " + (i % 100), "isbn-" + i });
+            if (rows.size() == BATCH_SIZE || i == books) {
+                jdbc.batchUpdate("insert into book (title, author, isbn) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        Date loanDate = Date.valueOf(LocalDate.now().minusDays(10));
+        Date dueDate = Date.valueOf(LocalDate.now().minusDays(6));
+        for (int i = 1; i <= loans; i++) {
+            rows.add(new Object[]{ "Customer " + (i % 1000), "customer" + (i % 1000) + "@email.com",
+                    loanDate, dueDate, "isbn-" + i });
+            if (rows.size() == BATCH_SIZE || i == loans) {
+                jdbc.batchUpdate("insert into loan (customer, customer_email, id_book, loan_date, due_date, status, active_book_id) " +
+                        "select ?, ?, b.id, ?, ?, 'ACTIVE', b.id from book b where b.isbn = ?",
+                        rows);
+                rows.clear();
+            }
+        }
+    }
+}
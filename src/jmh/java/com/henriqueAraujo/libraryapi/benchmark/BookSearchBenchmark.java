@@ -0,0 +1,65 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title search through the inverted index against the previous
+ * lower(title) like '%x%' scan.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+
+    @Param("100000")
+    private int books;
+
+    @Param("title 123")
+    private String title;
+
+    private ConfigurableApplicationContext context;
+    private BookService service;
+    private BookRepository repository;
+    private Example<Book> example;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(books, 0);
+        service = context.getBean(BookService.class);
+        repository = context.getBean(BookRepository.class);
+        example = Example.of(Book.builder().title(title).build(),
+                ExampleMatcher
+                        .matching()
+                        .withIgnoreCase()
+                        .withIgnoreNullValues()
+                        .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> likeScan() {
+        return repository.findAll(example, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> searchIndex() {
+        return service.find(Book.builder().title(title).build(), PageRequest.of(0, 20));
+    }
+}
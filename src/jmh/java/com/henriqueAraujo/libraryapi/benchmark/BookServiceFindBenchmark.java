@@ -0,0 +1,53 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookServiceImpl.find: Example/ExampleMatcher CONTAINING search plus the
+ * count query of the page.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceFindBenchmark {
+
+    @Param("10000")
+    private int books;
+
+    @Param("2000")
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private BookService service;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(books, loans);
+        service = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle() {
+        return service.find(Book.builder().title("title 12").build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthor() {
+        return service.find(Book.builder().author("author 7").build(), PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,114 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.exception.BusinessException;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout followed by return through LoanServiceImpl at 1, 8 and 64
+ * concurrent clients. With contention=same every client fights for one book
+ * and most checkouts are rejected; with contention=different each client
+ * works on its own books and only shares lock stripes by chance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param("10000")
+        private int books;
+
+        @Param({"same", "different"})
+        private String contention;
+
+        private ConfigurableApplicationContext context;
+        private LoanService service;
+        private List<Book> catalog;
+        private final AtomicInteger clients = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            context = BenchmarkContext.start(books, 0);
+            service = context.getBean(LoanService.class);
+            catalog = context.getBean(BookRepository.class).findAll();
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private static final int BOOKS_PER_CLIENT = 100;
+
+        private int first;
+        private int next;
+        private boolean same;
+
+        @Setup
+        public void setUp(Catalog catalog) {
+            same = "same".equals(catalog.contention);
+            first = catalog.clients.getAndIncrement() * BOOKS_PER_CLIENT % catalog.catalog.size();
+        }
+
+        Book book(Catalog catalog) {
+            if (same) {
+                return catalog.catalog.get(0);
+            }
+            next = (next + 1) % BOOKS_PER_CLIENT;
+            return catalog.catalog.get((first + next) % catalog.catalog.size());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean checkout1(Catalog catalog, Client client) {
+        return checkoutAndReturn(catalog, client);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean checkout8(Catalog catalog, Client client) {
+        return checkoutAndReturn(catalog, client);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean checkout64(Catalog catalog, Client client) {
+        return checkoutAndReturn(catalog, client);
+    }
+
+    private boolean checkoutAndReturn(Catalog catalog, Client client) {
+        Loan loan;
+        try {
+            loan = catalog.service.save(Loan.builder()
+                    .book(client.book(catalog))
+                    .customer("benchmark")
+                    .customerEmail("benchmark@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+        } catch (BusinessException ex) {
+            return false;
+        }
+        loan.setReturned(true);
+        catalog.service.update(loan);
+        return true;
+    }
+}
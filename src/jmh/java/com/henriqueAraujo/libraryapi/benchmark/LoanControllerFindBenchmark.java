@@ -0,0 +1,54 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.resource.LoanController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoanController.find: the repository page, the loans' books and the mapping
+ * of every row to LoanDTO.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanControllerFindBenchmark {
+
+    @Param("10000")
+    private int books;
+
+    @Param("2000")
+    private int loans;
+
+    @Param("100")
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private LoanController controller;
+    private LoanFilterDTO filter;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(books, loans);
+        controller = context.getBean(LoanController.class);
+        filter = LoanFilterDTO.builder().isbn("isbn-1").customer("Customer 1").build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<LoanDTO> find() {
+        return controller.find(filter, PageRequest.of(0, pageSize));
+    }
+}
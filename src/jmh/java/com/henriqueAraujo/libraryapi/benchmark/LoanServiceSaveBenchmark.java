@@ -0,0 +1,73 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoanServiceImpl.save: the existsByBookAndNotReturned check followed by the
+ * insert. Only books without an active loan are used, and the loans are
+ * returned between iterations so every save takes the success path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanServiceSaveBenchmark {
+
+    @Param("10000")
+    private int books;
+
+    @Param("2000")
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService service;
+    private JdbcTemplate jdbc;
+    private List<Book> freeBooks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(books, loans);
+        service = context.getBean(LoanService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        freeBooks = context.getBean(BookRepository.class).findAll();
+        freeBooks = freeBooks.subList(Math.min(loans, freeBooks.size()), freeBooks.size());
+    }
+
+    @Setup(Level.Iteration)
+    public void returnBenchmarkLoans() {
+        jdbc.update("update loan set status = 'RETURNED', active_book_id = null where customer = 'benchmark'");
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan save() {
+        if (next == freeBooks.size()) {
+            returnBenchmarkLoans();
+        }
+        Book book = freeBooks.get(next++);
+        return service.save(Loan.builder()
+                .book(book)
+                .customer("benchmark")
+                .customerEmail("benchmark@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+    }
+}
@@ -0,0 +1,75 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overdue query over a loan table of several million rows, almost all of
+ * them returned. Loan dates spread over the last 400 days and one loan in 500
+ * is still active. byStatusAndDueDate is the range scan on
+ * idx_loan_status_due; byLoanDate is the shape of the old query, a range on
+ * loan_date that reads every returned loan in it; findOverdue is what the
+ * application runs, including entity loading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverdueQueryBenchmark {
+
+    @Param("2000000")
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private LoanRepository loanRepository;
+    private JdbcTemplate jdbc;
+    private Date today;
+    private Date fourDaysAgo;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(1000, 0);
+        loanRepository = context.getBean(LoanRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into loan (customer, customer_email, id_book, loan_date, due_date, status) " +
+                "select 'Customer ' || mod(x, 1000), 'customer' || mod(x, 1000) || '@email.com', " +
+                "       (select min(id) from book) + mod(x, 1000), " +
+                "       dateadd('DAY', -mod(x, 400), current_date), dateadd('DAY', 4 - mod(x, 400), current_date), " +
+                "       case when mod(x, 500) = 0 then 'ACTIVE' else 'RETURNED' end " +
+                "from system_range(1, ?)", loans);
+        jdbc.execute("create index bench_loan_date_status on loan (loan_date, status)");
+        jdbc.execute("analyze");
+        today = Date.valueOf(LocalDate.now());
+        fourDaysAgo = Date.valueOf(LocalDate.now().minusDays(4));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int byStatusAndDueDate() {
+        return jdbc.queryForList("select id from loan use index (idx_loan_status_due) " +
+                "where status = 'ACTIVE' and due_date <= ?", Long.class, today).size();
+    }
+
+    @Benchmark
+    public int byLoanDate() {
+        return jdbc.queryForList("select id from loan use index (bench_loan_date_status) " +
+                "where loan_date <= ? and status = 'ACTIVE'", Long.class, fourDaysAgo).size();
+    }
+
+    @Benchmark
+    public int findOverdue() {
+        return loanRepository.findOverdue(LocalDate.now()).size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a Page<BookDTO> with the application's ObjectMapper,
+ * as written by GET /api/books.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageJsonBenchmark {
+
+    @Param("100")
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private Page<BookDTO> page;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(0, 0);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<BookDTO> content = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            content.add(BookDTO.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build());
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,60 @@
+package com.henriqueAraujo.libraryapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test over HTTP: 256 concurrent clients list loans by customer, which
+ * hits the database on every call. Compares the Tomcat platform thread pool
+ * with application.threads.virtual=true; Throughput gives ops/ms and
+ * SampleTime the p0.99 latency. The virtual mode needs a JDK 21+ fork and
+ * falls back to platform threads otherwise.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class RequestThroughputBenchmark {
+
+    @Param({"false", "true"})
+    private String virtualThreads;
+
+    @Param("10000")
+    private int books;
+
+    @Param("5000")
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(books, loans, "application.threads.virtual=" + virtualThreads);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/loans?customer=Customer%207&page=0&size=20")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findLoans() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
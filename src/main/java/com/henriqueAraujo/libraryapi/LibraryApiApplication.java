@@ -1,48 +1,39 @@
 package com.henriqueAraujo.libraryapi;
 
-import com.henriqueAraujo.libraryapi.service.EmailService;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import com.henriqueAraujo.libraryapi.api.mapper.BookMapper;
+import com.henriqueAraujo.libraryapi.api.mapper.LoanMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-import java.util.Arrays;
-import java.util.List;
-
 
 @SpringBootApplication
 @EnableScheduling
+@EnableAsync
 public class LibraryApiApplication {
 
-
-	@Autowired
-	private EmailService emailService;
-
-	public LibraryApiApplication(EmailService emailService) {
-		this.emailService = emailService;
-	}
+	/** Startup steps kept for the timeline report and the actuator startup endpoint. */
+	private static final int STARTUP_STEPS = 10000;
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return new BookMapper();
 	}
 
 	@Bean
-	public CommandLineRunner runner() {
-		return args -> {
-			List<String> emails = Arrays.asList("a06ebb7209-183e66@inbox.mailtrap.io");
-			emailService.sendMails("Testando serviço de emails", emails);
-			System.out.println("EMAILS ENVIADOS");
-		};
+	public LoanMapper loanMapper(BookMapper bookMapper) {
+		return new LoanMapper(bookMapper);
 	}
 
 	public static void main(String[] args) {
 
-		SpringApplication.run(LibraryApiApplication.class, args);
+		SpringApplication application = new SpringApplication(LibraryApiApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,161 @@
+package com.henriqueAraujo.libraryapi.api.cache;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.service.cache.BookChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The JSON of GET /api/books/{id}, already encoded, in direct buffers outside
+ * the heap. An entry belongs to one book version: the controller asks with
+ * the version of the book it just read, so a book changed on another node
+ * misses as soon as its near cache entry is gone. Updates and deletes on this
+ * node drop the entry on commit.
+ *
+ * The buffers take at most {@code max-bytes}, least recently read evicted
+ * first. Memory of an evicted buffer goes back to the OS when the buffer is
+ * garbage collected, so keep {@code -XX:MaxDirectMemorySize} above the cap.
+ *
+ * The heap-avoided gauge is the estimated size of the same entries kept as
+ * BookDTO objects (compressed oops, compact strings) minus what the entries
+ * here take on the heap.
+ */
+@Component
+public class BookJsonCache {
+
+    /** Entry, the direct buffer, its read-only view and its cleaner. */
+    static final long ENTRY_HEAP_BYTES = 32 + 3 * 64;
+
+    private final long maxBytes;
+
+    /** Access ordered, so iteration starts at the least recently read book. Guarded by this. */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long offHeapBytes;
+    private long dtoHeapBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public BookJsonCache(MeterRegistry registry,
+                         @Value("${application.books.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("library.books.json.cache.gets").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("library.books.json.cache.gets").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("library.books.json.cache.evictions").register(registry);
+        Gauge.builder("library.books.json.cache.size", this, BookJsonCache::size).register(registry);
+        Gauge.builder("library.books.json.cache.offheap", this, BookJsonCache::offHeapBytes)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("library.books.json.cache.heap.avoided", this, BookJsonCache::heapBytesAvoided)
+                .baseUnit("bytes").register(registry);
+    }
+
+    /** A read-only view of the JSON of this book version, or null. */
+    public synchronized ByteBuffer get(long id, long version) {
+        Entry entry = entries.get(id);
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.json.duplicate();
+    }
+
+    public void put(long id, long version, BookDTO dto, byte[] json) {
+        if (json.length > maxBytes) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(json.length);
+        buffer.put(json).flip();
+        Entry entry = new Entry(version, buffer.asReadOnlyBuffer(), dtoHeapBytes(dto));
+
+        synchronized (this) {
+            forget(entries.put(id, entry));
+            offHeapBytes += json.length;
+            dtoHeapBytes += entry.dtoHeapBytes;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (offHeapBytes > maxBytes && eldest.hasNext()) {
+                forget(eldest.next());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidate(long id) {
+        forget(entries.remove(id));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(event.getBookId());
+    }
+
+    private void forget(Entry entry) {
+        if (entry != null) {
+            offHeapBytes -= entry.json.capacity();
+            dtoHeapBytes -= entry.dtoHeapBytes;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long offHeapBytes() {
+        return offHeapBytes;
+    }
+
+    public synchronized long heapBytesAvoided() {
+        return dtoHeapBytes - entries.size() * ENTRY_HEAP_BYTES;
+    }
+
+    /** BookDTO (header and five references), its Long id and its strings. */
+    static long dtoHeapBytes(BookDTO dto) {
+        long bytes = align(12 + 5 * 4);
+        if (dto.getId() != null) {
+            bytes += 16;
+        }
+        bytes += stringHeapBytes(dto.getTitle());
+        bytes += stringHeapBytes(dto.getAuthor());
+        bytes += stringHeapBytes(dto.getIsbn());
+        bytes += stringHeapBytes(dto.getCategory());
+        return bytes;
+    }
+
+    private static long stringHeapBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) <= 0xff;
+        }
+        return 24 + align(16 + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static final class Entry {
+
+        final long version;
+        final ByteBuffer json;
+        final long dtoHeapBytes;
+
+        Entry(long version, ByteBuffer json, long dtoHeapBytes) {
+            this.version = version;
+            this.json = json;
+            this.dtoHeapBytes = dtoHeapBytes;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.henriqueAraujo.libraryapi.api.cache;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a ByteBuffer response body, such as a BookJsonCache entry, as it
+ * is. A direct buffer goes to the response stream through a channel, so the
+ * body is never copied into one heap array. Write only; the buffer's
+ * position is left alone.
+ */
+@Component
+public class ByteBufferHttpMessageConverter extends AbstractHttpMessageConverter<ByteBuffer> {
+
+    public ByteBufferHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ByteBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ByteBuffer readInternal(Class<? extends ByteBuffer> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ByteBuffer bodies are written only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ByteBuffer body, MediaType contentType) {
+        return (long) body.remaining();
+    }
+
+    @Override
+    protected void writeInternal(ByteBuffer body, HttpOutputMessage outputMessage) throws IOException {
+        ByteBuffer bytes = body.duplicate();
+        WritableByteChannel channel = Channels.newChannel(outputMessage.getBody());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
@@ -25,6 +25,7 @@ public class BookDTO {
     private String author;
     @NotEmpty
     private String isbn;
+    private String category;
 }
 
 
@@ -0,0 +1,28 @@
+package com.henriqueAraujo.libraryapi.api.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of a catalog import. Duplicates are rows whose isbn was already in
+ * the catalog or earlier in the file; invalid rows have no isbn or title;
+ * skipped rows were rejected by the database, e.g. an isbn inserted by
+ * someone else while the import ran.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportReportDTO {
+
+    private long read;
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long skipped;
+    private long millis;
+    private long rowsPerSecond;
+}
@@ -0,0 +1,28 @@
+package com.henriqueAraujo.libraryapi.api.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/** Outcome of one isbn of a bulk checkout; id and dueDate are set when it was LOANED. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanCheckoutResultDTO {
+
+    public enum Result {
+        LOANED,
+        ALREADY_LOANED,
+        BOOK_NOT_FOUND
+    }
+
+    private String isbn;
+    private Long id;
+    private LocalDate dueDate;
+    private Result result;
+}
@@ -1,9 +1,11 @@
 package com.henriqueAraujo.libraryapi.api.dto;
 
 
+import com.henriqueAraujo.libraryapi.model.entity.LoanStatus;
 import lombok.*;
 
 import javax.validation.constraints.NotEmpty;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -18,5 +20,9 @@ public class LoanDTO {
     private String customer;
     @NotEmpty
     private String email;
+    private String customerClass;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LoanStatus status;
     private BookDTO book;
 }
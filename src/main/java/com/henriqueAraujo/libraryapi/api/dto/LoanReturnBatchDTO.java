@@ -0,0 +1,20 @@
+package com.henriqueAraujo.libraryapi.api.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Loans to return at once, by loan id or by the isbn of the loaned book. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnBatchDTO {
+
+    private List<Long> ids;
+    private List<String> isbns;
+}
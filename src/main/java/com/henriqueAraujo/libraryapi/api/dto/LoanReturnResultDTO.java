@@ -0,0 +1,28 @@
+package com.henriqueAraujo.libraryapi.api.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch return. The loan id is set when the item
+ * matched a loan; for an isbn, NOT_FOUND means the book has no active loan.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+
+    public enum Result {
+        RETURNED,
+        ALREADY_RETURNED,
+        NOT_FOUND
+    }
+
+    private Long id;
+    private String isbn;
+    private Result result;
+}
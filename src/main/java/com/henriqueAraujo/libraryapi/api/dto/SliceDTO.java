@@ -0,0 +1,28 @@
+package com.henriqueAraujo.libraryapi.api.dto;
+
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "Page without totals, returned when the request has the header X-Page-Mode: slice")
+public class SliceDTO<T> {
+
+    @ApiModelProperty("Rows of the requested page")
+    private List<T> content;
+    @ApiModelProperty("Zero-based page number")
+    private int number;
+    @ApiModelProperty("Requested page size")
+    private int size;
+    @ApiModelProperty("True when a next page exists")
+    private boolean hasNext;
+}
@@ -0,0 +1,67 @@
+package com.henriqueAraujo.libraryapi.api.etag;
+
+/**
+ * Strong ETags built from the @Version columns. A single resource's ETag is
+ * its version; a page's ETag is a 64-bit hash of the ids and versions it
+ * shows plus its position, so any change to a row or to the page changes it.
+ */
+public final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {
+    }
+
+    /** The ETag of one version, or null when there is none yet. */
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static Hash hash() {
+        return new Hash();
+    }
+
+    /**
+     * Strong comparison against an If-Match header: a list of ETags or "*".
+     * Weak ETags never match.
+     */
+    public static boolean matches(String ifMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** FNV-1a over the bytes of the values added, in order. */
+    public static final class Hash {
+
+        private long hash = FNV_OFFSET;
+
+        private Hash() {
+        }
+
+        public Hash add(long value) {
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                hash ^= (value >>> shift) & 0xff;
+                hash *= FNV_PRIME;
+            }
+            return this;
+        }
+
+        /** Adds a nullable value; null is told apart from every number. */
+        public Hash add(Long value) {
+            return value == null ? add(Long.MIN_VALUE).add(0L) : add(1L).add(value.longValue());
+        }
+
+        public String toETag() {
+            return "\"" + Long.toHexString(hash) + "\"";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.henriqueAraujo.libraryapi.api.imports;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads books from CSV one line at a time. The first line is a header naming
+ * the columns (title, author, isbn, category, in any order; others are
+ * ignored). Fields may be quoted with double quotes, with "" for a quote
+ * inside; quoted line breaks are not supported. Blank lines are skipped.
+ */
+public class CsvBookReader implements Iterator<Book> {
+
+    private final BufferedReader reader;
+    private final int title;
+    private final int author;
+    private final int isbn;
+    private final int category;
+    private String next;
+
+    public CsvBookReader(BufferedReader reader) {
+        this.reader = reader;
+        List<String> header = parse(readLine());
+        List<String> columns = new ArrayList<>(header.size());
+        for (String column : header) {
+            columns.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        this.title = columns.indexOf("title");
+        this.author = columns.indexOf("author");
+        this.isbn = columns.indexOf("isbn");
+        this.category = columns.indexOf("category");
+        if (isbn < 0 || title < 0) {
+            throw new IllegalArgumentException("CSV header must name the title and isbn columns");
+        }
+        this.next = readLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Book next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> fields = parse(next);
+        next = readLine();
+        return Book.builder()
+                .title(field(fields, title))
+                .author(field(fields, author))
+                .isbn(field(fields, isbn))
+                .category(field(fields, category))
+                .build();
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.trim().isEmpty());
+            return line;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        if (line == null) {
+            return fields;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,37 @@
+package com.henriqueAraujo.libraryapi.api.mapper;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+
+/**
+ * Hand-written Book <-> BookDTO mapping. Replaces the reflective ModelMapper
+ * on the list endpoints: each call allocates only the target object.
+ */
+public class BookMapper {
+
+    public BookDTO toDto(Book book) {
+        if (book == null) {
+            return null;
+        }
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setAuthor(book.getAuthor());
+        dto.setIsbn(book.getIsbn());
+        dto.setCategory(book.getCategory());
+        return dto;
+    }
+
+    public Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Book book = new Book();
+        book.setId(dto.getId());
+        book.setTitle(dto.getTitle());
+        book.setAuthor(dto.getAuthor());
+        book.setIsbn(dto.getIsbn());
+        book.setCategory(dto.getCategory());
+        return book;
+    }
+}
@@ -0,0 +1,39 @@
+package com.henriqueAraujo.libraryapi.api.mapper;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+
+/**
+ * Loan -> LoanDTO mapping, including the nested BookDTO.
+ */
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanMapper(BookMapper bookMapper) {
+        this.bookMapper = bookMapper;
+    }
+
+    public LoanDTO toDto(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        Book book = loan.getBook();
+        LoanDTO dto = new LoanDTO();
+        dto.setId(loan.getId());
+        dto.setCustomer(loan.getCustomer());
+        dto.setEmail(loan.getCustomerEmail());
+        dto.setCustomerClass(loan.getCustomerClass());
+        dto.setLoanDate(loan.getLoanDate());
+        dto.setDueDate(loan.getDueDate());
+        dto.setStatus(loan.getStatus());
+        if (book != null) {
+            BookDTO bookDTO = bookMapper.toDto(book);
+            dto.setIsbn(book.getIsbn());
+            dto.setBook(bookDTO);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,54 @@
+package com.henriqueAraujo.libraryapi.api.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token: the sort key and the id of the last row of
+ * the previous page. An empty token means the first page.
+ */
+public final class Cursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final String key;
+    private final Long id;
+
+    private Cursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public static String encode(String key, Long id) {
+        String raw = id + String.valueOf(SEPARATOR) + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return new Cursor(null, null);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new Cursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.henriqueAraujo.libraryapi.api.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public final class PageSizes {
+
+    public static final int MAX_SIZE = 1000;
+
+    private PageSizes() {
+    }
+
+    public static int check(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_SIZE);
+        }
+        return size;
+    }
+}
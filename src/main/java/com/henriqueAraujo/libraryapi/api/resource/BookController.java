@@ -2,23 +2,41 @@ package com.henriqueAraujo.libraryapi.api.resource;
 
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.cache.BookJsonCache;
 import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.CursorPageDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.SliceDTO;
+import com.henriqueAraujo.libraryapi.api.etag.ETags;
+import com.henriqueAraujo.libraryapi.api.mapper.BookMapper;
+import com.henriqueAraujo.libraryapi.api.mapper.LoanMapper;
+import com.henriqueAraujo.libraryapi.api.pagination.Cursor;
+import com.henriqueAraujo.libraryapi.api.pagination.PageSizes;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
 import com.henriqueAraujo.libraryapi.service.BookService;
 import com.henriqueAraujo.libraryapi.service.LoanService;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiOperation;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,12 +49,20 @@ import java.util.stream.Collectors;
 public class BookController {
 
     private  BookService service;
-    private  ModelMapper modelMapper;
+    private  BookMapper bookMapper;
+    private  LoanMapper loanMapper;
     private LoanService loanService;
+    private BookJsonCache jsonCache;
+    private ObjectMapper objectMapper;
 
-    public BookController(BookService service, ModelMapper mapper) {
+    public BookController(BookService service, LoanService loanService, BookMapper bookMapper, LoanMapper loanMapper,
+                          BookJsonCache jsonCache, ObjectMapper objectMapper) {
         this.service = service;
-        this.modelMapper = mapper;
+        this.loanService = loanService;
+        this.bookMapper = bookMapper;
+        this.loanMapper = loanMapper;
+        this.jsonCache = jsonCache;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -44,19 +70,45 @@ public class BookController {
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Create a book")
     public BookDTO create(@RequestBody @Valid BookDTO dto) {
-        Book entity = modelMapper.map( dto, Book.class );
+        Book entity = bookMapper.toEntity(dto);
         entity = service.save(entity);
-        return modelMapper.map(entity, BookDTO.class);
+        return bookMapper.toDto(entity);
     }
 
-    @GetMapping("{id}")
-    @ApiOperation("Obteins a book details by id")
-    public BookDTO get(@PathVariable Long id) {
-        return service
+    /**
+     * Answers 304 without a body when If-None-Match has the book's current
+     * version. Otherwise the JSON of that version comes from the
+     * BookJsonCache, or is encoded once and cached, and the buffer is written
+     * to the response as is (ByteBufferHttpMessageConverter).
+     */
+    @GetMapping(value = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Obteins a book details by id", response = BookDTO.class)
+    public ResponseEntity<ByteBuffer> get(@PathVariable Long id, WebRequest request) throws IOException {
+        Book book = service
                 .getById(id)
-                .map( book -> modelMapper.map(book, BookDTO.class) )
                 .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
-
+        String etag = ETags.of(book.getVersion());
+        if (etag == null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(ByteBuffer.wrap(objectMapper.writeValueAsBytes(bookMapper.toDto(book))));
+        }
+        if (request.checkNotModified(etag)) {
+            // the ETag header and the 304 are already on the response
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        ByteBuffer json = jsonCache.get(book.getId(), book.getVersion());
+        if (json == null) {
+            BookDTO dto = bookMapper.toDto(book);
+            byte[] bytes = objectMapper.writeValueAsBytes(dto);
+            jsonCache.put(book.getId(), book.getVersion(), dto, bytes);
+            json = ByteBuffer.wrap(bytes);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(json);
     }
 
     @DeleteMapping("{id}")
@@ -68,46 +120,113 @@ public class BookController {
 
     }
 
+    /**
+     * With If-Match the update only goes through while the book still has
+     * that version: 412 otherwise, also when another update commits first.
+     * Without it a concurrent update still fails, with 409.
+     */
     @PutMapping("{id}")
     @ApiOperation("Updates a book")
-    public BookDTO update ( @PathVariable Long id, BookDTO dto) {
+    public BookDTO update ( @PathVariable Long id, BookDTO dto,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                            HttpServletResponse response) {
         return service.getById(id).map ( book -> {
+            if (ifMatch != null && !ETags.matches(ifMatch, ETags.of(book.getVersion()))) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+            }
             book.setAuthor(dto.getAuthor());
             book.setTitle(dto.getTitle());
-            book = service.update(book);
-            return modelMapper.map(book, BookDTO.class);
+            book.setCategory(dto.getCategory());
+            try {
+                book = service.update(book);
+            } catch (OptimisticLockingFailureException ex) {
+                throw new ResponseStatusException(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+            }
+            String etag = ETags.of(book.getVersion());
+            if (etag != null) {
+                response.setHeader(HttpHeaders.ETAG, etag);
+            }
+            return bookMapper.toDto(book);
 
         }).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
     }
     @GetMapping
-    @ApiOperation("Lists books by params")
-    public Page<BookDTO> find( BookDTO dto, Pageable pageRequest ){
-        Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
+    @ApiOperation("Lists books by params. available=true/false keeps only books that are free/on loan")
+    public Page<BookDTO> find( BookDTO dto,
+                               @RequestParam(value = "available", required = false) Boolean available,
+                               Pageable pageRequest ){
+        Book filter = bookMapper.toEntity(dto);
+        Page<Book> result = available == null
+                ? service.find(filter, pageRequest)
+                : service.findByAvailability(filter, available, pageRequest);
         List<BookDTO> list = result.getContent()
                 .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(bookMapper::toDto)
                 .collect(Collectors.toList());
 
         return new PageImpl<BookDTO>( list, pageRequest, result.getTotalElements() );
     }
 
+    @GetMapping(headers = "X-Page-Mode=slice")
+    @ApiOperation("Lists books by params without counting the total")
+    @ApiImplicitParam(name = "X-Page-Mode", value = "slice", paramType = "header", required = true)
+    public SliceDTO<BookDTO> findSlice( BookDTO dto, Pageable pageRequest ){
+        Book filter = bookMapper.toEntity(dto);
+        Slice<Book> result = service.findSlice(filter, pageRequest);
+        List<BookDTO> list = result.getContent()
+                .stream()
+                .map(bookMapper::toDto)
+                .collect(Collectors.toList());
+
+        return new SliceDTO<BookDTO>( list, result.getNumber(), result.getSize(), result.hasNext() );
+    }
+
+    @GetMapping(params = "after")
+    @ApiOperation("Lists books by params with keyset pagination, ordered by title. Send after= for the first page")
+    public CursorPageDTO<BookDTO> findAfter( BookDTO dto,
+                                             @RequestParam("after") String after,
+                                             @RequestParam(value = "size", defaultValue = "20") int size ){
+        Cursor cursor = Cursor.decode(after);
+        Book filter = bookMapper.toEntity(dto);
+        Slice<Book> result = service.findAfter(filter, cursor.getKey(), cursor.getId(), PageSizes.check(size));
+        List<Book> content = result.getContent();
+        List<BookDTO> list = content
+                .stream()
+                .map(bookMapper::toDto)
+                .collect(Collectors.toList());
+
+        String next = null;
+        if (result.hasNext()) {
+            Book last = content.get(content.size() - 1);
+            next = Cursor.encode(last.getTitle(), last.getId());
+        }
+        return new CursorPageDTO<BookDTO>( list, result.getSize(), next );
+    }
+
     @GetMapping("{id}/loans")
     public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable ){
         Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         Page<Loan> result = loanService.getLoansByBook(book, pageable);
         List<LoanDTO> list = result.getContent()
                 .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList());
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
         return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
     }
 
+    @GetMapping(value = "{id}/loans", headers = "X-Page-Mode=slice")
+    @ApiOperation("Lists the loans of a book without counting the total")
+    @ApiImplicitParam(name = "X-Page-Mode", value = "slice", paramType = "header", required = true)
+    public SliceDTO<LoanDTO> loanSliceByBook(@PathVariable Long id, Pageable pageable ){
+        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Slice<Loan> result = loanService.getLoanSliceByBook(book, pageable);
+        List<LoanDTO> list = result.getContent()
+                .stream()
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+        return new SliceDTO<LoanDTO>(list, result.getNumber(), result.getSize(), result.hasNext());
+    }
+
 }
 
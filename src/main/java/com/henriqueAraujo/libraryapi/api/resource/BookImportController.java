@@ -0,0 +1,74 @@
+package com.henriqueAraujo.libraryapi.api.resource;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.BookImportReportDTO;
+import com.henriqueAraujo.libraryapi.api.imports.CsvBookReader;
+import com.henriqueAraujo.libraryapi.api.mapper.BookMapper;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.service.imports.BookImporter;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Bulk catalog import. The request body is read as it arrives, so the size of
+ * the catalog is not limited by memory.
+ */
+@RestController
+@RequestMapping("/api/books/import")
+@RequiredArgsConstructor
+@Api("Book import API")
+public class BookImportController {
+
+    static final String TEXT_CSV = "text/csv";
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final BookImporter importer;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(consumes = TEXT_CSV)
+    @ApiOperation("Imports books from CSV with a header line (title, author, isbn, category)")
+    public BookImportReportDTO importCsv(InputStream body) {
+        CsvBookReader rows;
+        try {
+            rows = new CsvBookReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        return importer.importBooks(rows);
+    }
+
+    @PostMapping(consumes = APPLICATION_NDJSON)
+    @ApiOperation("Imports books from newline delimited JSON, one book per line")
+    public BookImportReportDTO importNdjson(InputStream body) throws IOException {
+        MappingIterator<BookDTO> rows = objectMapper.readerFor(BookDTO.class).readValues(body);
+        return importer.importBooks(new Iterator<Book>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Book next() {
+                Book book = bookMapper.toEntity(rows.next());
+                book.setId(null);
+                return book;
+            }
+        });
+    }
+}
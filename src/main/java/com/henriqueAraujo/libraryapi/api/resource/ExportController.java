@@ -0,0 +1,214 @@
+package com.henriqueAraujo.libraryapi.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.mapper.BookMapper;
+import com.henriqueAraujo.libraryapi.api.mapper.LoanMapper;
+import com.henriqueAraujo.libraryapi.config.TaskExecutors;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.service.export.CatalogExporter;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Full exports of books and loans as NDJSON (default) or CSV. Rows are
+ * written to the response as they are read, without OFFSET paging or
+ * counts, and sent chunked in blocks of a few KiB. The rows are read on the
+ * export pool with their own {@code timeout-ms}, so a long export does not
+ * need a long timeout for every async request.
+ */
+@RestController
+@RequestMapping("/api/export")
+@Api("Export API")
+public class ExportController {
+
+    static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String BOOK_HEADER = "id,title,author,isbn,category";
+    private static final String LOAN_HEADER = "id,customer,email,isbn,loanDate,dueDate,status";
+
+    private final CatalogExporter exporter;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final long timeoutMs;
+
+    public ExportController(CatalogExporter exporter, BookMapper bookMapper, LoanMapper loanMapper,
+                            ObjectMapper objectMapper, TaskExecutors taskExecutors,
+                            @Value("${application.export.threads:8}") int threads,
+                            @Value("${application.export.timeout-ms:1800000}") long timeoutMs) {
+        this.exporter = exporter;
+        this.bookMapper = bookMapper;
+        this.loanMapper = loanMapper;
+        this.objectMapper = objectMapper;
+        this.executor = taskExecutors.newBlockingPool("export-", threads);
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @GetMapping("books")
+    @ApiOperation("Exports every book matching the filters")
+    public ResponseEntity<ResponseBodyEmitter> exportBooks(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "author", required = false) String author,
+            @RequestParam(value = "isbn", required = false) String isbn) {
+        boolean csv = isCsv(format);
+        return stream(csv, out -> {
+            if (csv) {
+                line(out, BOOK_HEADER);
+            }
+            exporter.forEachBook(title, author, isbn, book -> write(out, csv, book));
+        });
+    }
+
+    @GetMapping("loans")
+    @ApiOperation("Exports every loan matching the filters")
+    public ResponseEntity<ResponseBodyEmitter> exportLoans(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "isbn", required = false) String isbn,
+            @RequestParam(value = "customer", required = false) String customer) {
+        boolean csv = isCsv(format);
+        return stream(csv, out -> {
+            if (csv) {
+                line(out, LOAN_HEADER);
+            }
+            exporter.forEachLoan(isbn, customer, loan -> write(out, csv, loan));
+        });
+    }
+
+    private interface RowsWriter {
+        void write(Writer out) throws IOException;
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> stream(boolean csv, RowsWriter rows) {
+        MediaType contentType = csv ? TEXT_CSV : APPLICATION_NDJSON;
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMs);
+        executor.execute(() -> {
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new EmitterOutputStream(emitter, contentType), StandardCharsets.UTF_8));
+                rows.write(out);
+                out.flush();
+                emitter.complete();
+            } catch (UncheckedIOException ex) {
+                emitter.completeWithError(ex.getCause());
+            } catch (IOException | RuntimeException ex) {
+                emitter.completeWithError(ex);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(emitter);
+    }
+
+    /** Sends each block the writer hands down as one chunk of the response. */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+        private final MediaType contentType;
+
+        EmitterOutputStream(ResponseBodyEmitter emitter, MediaType contentType) {
+            this.emitter = emitter;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                emitter.send(Arrays.copyOfRange(bytes, offset, offset + length), contentType);
+            }
+        }
+    }
+
+    private void write(Writer out, boolean csv, Book book) {
+        try {
+            if (csv) {
+                line(out, csv(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getCategory()));
+            } else {
+                line(out, objectMapper.writeValueAsString(bookMapper.toDto(book)));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void write(Writer out, boolean csv, Loan loan) {
+        try {
+            if (csv) {
+                line(out, csv(loan.getId(), loan.getCustomer(), loan.getCustomerEmail(), loan.getBook().getIsbn(),
+                        loan.getLoanDate(), loan.getDueDate(), loan.getStatus()));
+            } else {
+                line(out, objectMapper.writeValueAsString(loanMapper.toDto(loan)));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void line(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    private static boolean isCsv(String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return true;
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return false;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+    }
+
+    /** One CSV line; fields with commas, quotes or line breaks are quoted. */
+    static String csv(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = Objects.toString(values[i], "");
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+}
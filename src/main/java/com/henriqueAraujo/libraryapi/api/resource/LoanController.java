@@ -1,25 +1,43 @@
 package com.henriqueAraujo.libraryapi.api.resource;
 
 
-import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.CursorPageDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.ReturnedLoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.SliceDTO;
+import com.henriqueAraujo.libraryapi.api.etag.ETags;
+import com.henriqueAraujo.libraryapi.api.mapper.LoanMapper;
+import com.henriqueAraujo.libraryapi.api.pagination.Cursor;
+import com.henriqueAraujo.libraryapi.api.pagination.PageSizes;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
 import com.henriqueAraujo.libraryapi.service.BookService;
 import com.henriqueAraujo.libraryapi.service.LoanService;
+import io.swagger.annotations.ApiImplicitParam;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,10 +45,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LoanController {
 
+    static final int MAX_BATCH_RETURNS = 1000;
+
+    static final int MAX_BULK_CHECKOUTS = 5000;
 
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
 
 
 
@@ -44,6 +65,8 @@ public class LoanController {
         Loan entity = Loan.builder()
                 .book(book)
                 .customer(dto.getCustomer())
+                .customerEmail(dto.getEmail())
+                .customerClass(dto.getCustomerClass())
                 .loanDate(LocalDate.now())
                 .build();
 
@@ -53,6 +76,52 @@ public class LoanController {
 
     }
 
+    /**
+     * Checks out a list of books, one result per entry in request order. All
+     * isbns are resolved with one query; unknown ones are BOOK_NOT_FOUND and
+     * do not stop the others.
+     */
+    @PostMapping("bulk")
+    public List<LoanCheckoutResultDTO> createAll( @RequestBody List<LoanDTO> dtos ) {
+        if (dtos.isEmpty() || dtos.size() > MAX_BULK_CHECKOUTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A bulk checkout must have between 1 and " + MAX_BULK_CHECKOUTS + " loans");
+        }
+        Set<String> isbns = dtos.stream().map(LoanDTO::getIsbn).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, Book> books = bookService.getBooksByIsbns(isbns)
+                .stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+        LocalDate today = LocalDate.now();
+        List<Loan> loans = new ArrayList<>();
+        for (LoanDTO dto : dtos) {
+            Book book = books.get(dto.getIsbn());
+            if (book != null) {
+                loans.add(Loan.builder()
+                        .book(book)
+                        .customer(dto.getCustomer())
+                        .customerEmail(dto.getEmail())
+                        .customerClass(dto.getCustomerClass())
+                        .loanDate(today)
+                        .build());
+            }
+        }
+
+        Iterator<LoanCheckoutResultDTO> checkedOut = loans.isEmpty()
+                ? Collections.emptyIterator()
+                : service.saveAll(loans).iterator();
+        List<LoanCheckoutResultDTO> results = new ArrayList<>(dtos.size());
+        for (LoanDTO dto : dtos) {
+            results.add(books.containsKey(dto.getIsbn())
+                    ? checkedOut.next()
+                    : LoanCheckoutResultDTO.builder()
+                            .isbn(dto.getIsbn())
+                            .result(LoanCheckoutResultDTO.Result.BOOK_NOT_FOUND)
+                            .build());
+        }
+        return results;
+    }
+
     @PatchMapping("{id}")
     public void returnBook( @PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
 
@@ -62,22 +131,89 @@ public class LoanController {
         service.update(loan);
     }
 
+    @PostMapping("returns")
+    public List<LoanReturnResultDTO> returnBooks( @RequestBody LoanReturnBatchDTO dto){
+        int size = (dto.getIds() == null ? 0 : dto.getIds().size())
+                + (dto.getIsbns() == null ? 0 : dto.getIsbns().size());
+        if (size == 0 || size > MAX_BATCH_RETURNS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch return must have between 1 and " + MAX_BATCH_RETURNS + " items");
+        }
+        return service.returnLoans(dto);
+    }
+
+    /**
+     * The page still has to be read to compute its ETag, but a 304 skips
+     * mapping and serializing it. Books are part of the ETag since LoanDTO
+     * embeds them.
+     */
     @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
+    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest, WebRequest request) {
        Page<Loan> result = service.find(dto, pageRequest);
+       if (request.checkNotModified(etag(result))) {
+           return null;
+       }
        List<LoanDTO> loans =  result
                .getContent()
                .stream()
-               .map( entity -> {
-                   Book book = entity.getBook();
-                   BookDTO bookDTO =  modelMapper.map(book, BookDTO.class);
-                   LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                   loanDTO.setBook(bookDTO);
-                   return loanDTO;
-
-               }).collect(Collectors.toList());
+               .map( loanMapper::toDto )
+               .collect(Collectors.toList());
        return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
 
     }
 
+    @GetMapping(headers = "X-Page-Mode=slice")
+    @ApiImplicitParam(name = "X-Page-Mode", value = "slice", paramType = "header", required = true)
+    public SliceDTO<LoanDTO> findSlice(LoanFilterDTO dto, Pageable pageRequest) {
+       Slice<Loan> result = service.findSlice(dto, pageRequest);
+       List<LoanDTO> loans = result
+               .getContent()
+               .stream()
+               .map( loanMapper::toDto )
+               .collect(Collectors.toList());
+       return new SliceDTO<LoanDTO>(loans, result.getNumber(), result.getSize(), result.hasNext());
+    }
+
+    @GetMapping(params = "after")
+    public CursorPageDTO<LoanDTO> findAfter(LoanFilterDTO dto,
+                                            @RequestParam("after") String after,
+                                            @RequestParam(value = "size", defaultValue = "20") int size) {
+       Cursor cursor = Cursor.decode(after);
+       LocalDate afterLoanDate = cursor.isFirst() ? null : parseDate(cursor.getKey());
+       Slice<Loan> result = service.findAfter(dto, afterLoanDate, cursor.getId(), PageSizes.check(size));
+       List<Loan> content = result.getContent();
+       List<LoanDTO> loans = content
+               .stream()
+               .map( loanMapper::toDto )
+               .collect(Collectors.toList());
+
+       String next = null;
+       if (result.hasNext()) {
+           Loan last = content.get(content.size() - 1);
+           next = Cursor.encode(last.getLoanDate().toString(), last.getId());
+       }
+       return new CursorPageDTO<LoanDTO>(loans, result.getSize(), next);
+    }
+
+    private static String etag(Page<Loan> page) {
+        ETags.Hash hash = ETags.hash()
+                .add(page.getNumber())
+                .add(page.getSize())
+                .add(page.getTotalElements());
+        for (Loan loan : page.getContent()) {
+            Book book = loan.getBook();
+            hash.add(loan.getId()).add(loan.getVersion());
+            hash.add(book == null ? null : book.getId()).add(book == null ? null : book.getVersion());
+        }
+        return hash.toETag();
+    }
+
+    private LocalDate parseDate(String key) {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
 }
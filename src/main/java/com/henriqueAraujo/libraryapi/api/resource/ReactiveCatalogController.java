@@ -0,0 +1,110 @@
+package com.henriqueAraujo.libraryapi.api.resource;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.mapper.BookMapper;
+import com.henriqueAraujo.libraryapi.api.mapper.LoanMapper;
+import com.henriqueAraujo.libraryapi.api.pagination.PageSizes;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.service.BookService;
+import com.henriqueAraujo.libraryapi.service.LoanService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Read-only mirror of the book and loan listings. The servlet thread is
+ * released as soon as the request is parsed; the JPA call runs on the bounded
+ * catalogScheduler and the response is written when it completes. When that
+ * scheduler's queue is full, or a read is not answered within
+ * {@code timeout-ms}, the request gets 503 instead of waiting.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@Api("Reactive read API")
+public class ReactiveCatalogController {
+
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final Scheduler catalogScheduler;
+
+    @Value("${application.reactive.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @GetMapping("books")
+    @ApiOperation("Lists books by params")
+    public Mono<Page<BookDTO>> findBooks( BookDTO dto, Pageable pageRequest ){
+        Book filter = bookMapper.toEntity(dto);
+        return read(() -> bookService.find(filter, pageRequest).map(bookMapper::toDto));
+    }
+
+    @GetMapping(value = "books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation("Streams every book matching the params as NDJSON, ordered by title")
+    public Flux<BookDTO> streamBooks( BookDTO dto, @RequestParam(value = "chunk", defaultValue = "100") int chunk ){
+        Book filter = bookMapper.toEntity(dto);
+        int size = PageSizes.check(chunk);
+        return read(() -> bookService.findAfter(filter, null, null, size))
+                .expand(slice -> {
+                    if (!slice.hasNext()) {
+                        return Mono.empty();
+                    }
+                    List<Book> content = slice.getContent();
+                    Book last = content.get(content.size() - 1);
+                    return read(() -> bookService.findAfter(filter, last.getTitle(), last.getId(), size));
+                })
+                .concatMapIterable(Slice::getContent)
+                .map(bookMapper::toDto);
+    }
+
+    @GetMapping("books/{id}")
+    @ApiOperation("Obteins a book details by id")
+    public Mono<BookDTO> getBook( @PathVariable Long id ){
+        return read(() -> bookService.getById(id).map(bookMapper::toDto).orElse(null))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping("books/{id}/loans")
+    @ApiOperation("Lists the loans of a book")
+    public Mono<Page<LoanDTO>> loansByBook( @PathVariable Long id, Pageable pageable ){
+        return read(() -> bookService.getById(id).orElse(null))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(book -> read(() -> loanService.getLoansByBook(book, pageable).map(loanMapper::toDto)));
+    }
+
+    @GetMapping("loans")
+    @ApiOperation("Lists loans by params")
+    public Mono<Page<LoanDTO>> findLoans( LoanFilterDTO dto, Pageable pageRequest ){
+        return read(() -> loanService.find(dto, pageRequest).map(loanMapper::toDto));
+    }
+
+    private <T> Mono<T> read(Callable<T> query) {
+        return Mono.fromCallable(query)
+                .subscribeOn(catalogScheduler)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .onErrorMap(RejectedExecutionException.class,
+                        ex -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Catalog is busy"))
+                .onErrorMap(TimeoutException.class,
+                        ex -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Catalog read timed out"));
+    }
+}
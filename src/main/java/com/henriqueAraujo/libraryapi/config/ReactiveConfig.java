@@ -0,0 +1,22 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler that runs the blocking JPA reads of the reactive API. It is sized
+ * like the connection pool and has a bounded queue, so a burst of slow reads
+ * waits here (or is rejected) instead of holding servlet threads.
+ */
+@Configuration
+public class ReactiveConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler catalogScheduler(@Value("${application.reactive.threads:10}") int threads,
+                                      @Value("${application.reactive.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "catalog-read");
+    }
+}
@@ -0,0 +1,36 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import com.henriqueAraujo.libraryapi.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Queues a test email once the application is ready. Runs on the task
+ * executor so it never delays startup.
+ */
+@Slf4j
+@Component
+@Profile("!test & !benchmark")
+@ConditionalOnProperty(name = "application.mail.startup-check", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StartupMailCheck {
+
+    private final EmailService emailService;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void sendTestMail() {
+        List<String> emails = Arrays.asList("a06ebb7209-183e66@inbox.mailtrap.io");
+        emailService.sendMails("Testando serviço de emails", emails);
+        log.info("EMAILS ENVIADOS");
+    }
+}
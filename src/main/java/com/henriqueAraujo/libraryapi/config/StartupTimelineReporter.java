@@ -0,0 +1,97 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where startup time went once the application is ready: total time to
+ * ready, time per startup phase and the slowest beans. Bean times include the
+ * beans they pulled in. The full timeline is served by /actuator/startup.
+ *
+ * With {@code application.startup.exit-after-ready=true} the application
+ * exits right after the report, which is how the appcds profile records the
+ * classes loaded during startup.
+ */
+@Slf4j
+@Component
+public class StartupTimelineReporter {
+
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    @Value("${application.startup.slowest-beans:15}")
+    private int slowestBeans;
+
+    @Value("${application.startup.exit-after-ready:false}")
+    private boolean exitAfterReady;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        ApplicationStartup startup = context.getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup) {
+            log.info(report(((BufferingApplicationStartup) startup).getBufferedTimeline(),
+                    ManagementFactory.getRuntimeMXBean().getUptime()));
+        }
+        if (exitAfterReady) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    String report(StartupTimeline timeline, long uptimeMillis) {
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            String name = event.getStartupStep().getName();
+            if (!BEAN_STEP.equals(name)) {
+                phases.merge(name, event.getDuration(), Duration::plus);
+            }
+        }
+
+        StringBuilder report = new StringBuilder("Startup timeline: ready after ")
+                .append(uptimeMillis).append(" ms of JVM uptime, ")
+                .append(events.size()).append(" steps recorded");
+
+        report.append("\n  phases:");
+        phases.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .forEach(phase -> report.append(String.format("%n    %6d ms  %s",
+                        phase.getValue().toMillis(), phase.getKey())));
+
+        report.append("\n  slowest beans:");
+        events.stream()
+                .filter(event -> BEAN_STEP.equals(event.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(slowestBeans)
+                .collect(Collectors.toList())
+                .forEach(event -> report.append(String.format("%n    %6d ms  %s",
+                        event.getDuration().toMillis(), beanName(event.getStartupStep()))));
+        return report.toString();
+    }
+
+    private String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -1,8 +1,17 @@
 package com.henriqueAraujo.libraryapi.config;
 
+import com.fasterxml.classmate.TypeResolver;
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.CursorPageDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.SliceDTO;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.RequestHandler;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
@@ -11,27 +20,64 @@ import springfox.documentation.service.ApiInfo;
 import springfox.documentation.service.Contact;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 @EnableSwagger2
 @Configuration
+@ConditionalOnProperty(value = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfig {
 
     @Bean
-    public Docket docket() {
+    public Docket docket(TypeResolver typeResolver) {
         return new Docket(DocumentationType.SWAGGER_2)
                 .select()
                 .apis(RequestHandlerSelectors.basePackage("com.henriqueAraujo.libraryapi.api.resource"))
                 .paths(PathSelectors.any())
                 .build()
+                .additionalModels(
+                        typeResolver.resolve(SliceDTO.class, BookDTO.class),
+                        typeResolver.resolve(SliceDTO.class, LoanDTO.class),
+                        typeResolver.resolve(CursorPageDTO.class, BookDTO.class),
+                        typeResolver.resolve(CursorPageDTO.class, LoanDTO.class))
                 .apiInfo(apiInfo());
 
     }
 
+    /**
+     * Springfox 3 cannot read handler mappings that use the PathPatternParser,
+     * which the actuator endpoints always do. Hide them from springfox.
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    handlerMappings(bean).removeIf(mapping -> mapping.getPatternParser() != null);
+                }
+                return bean;
+            }
+
+            @SuppressWarnings("unchecked")
+            private List<RequestMappingInfoHandlerMapping> handlerMappings(Object bean) {
+                Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+                ReflectionUtils.makeAccessible(field);
+                return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+            }
+        };
+    }
+
     private ApiInfo apiInfo() {
         return new ApiInfoBuilder()
                 .title("Library API")
-                .description("API do projeto de controle de aluguel de livros")
+                .description("API do projeto de controle de aluguel de livros. " +
+                        "As listagens aceitam o header X-Page-Mode: slice, que devolve um SliceDTO " +
+                        "(content, number, size, hasNext) sem executar a consulta de contagem.")
                 .version("1.0")
                 .contact(contact())
                 .build();
@@ -0,0 +1,39 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors for blocking work (JDBC, SMTP). With
+ * {@code application.threads.virtual=true} on JDK 21+ every task gets its own
+ * virtual thread; otherwise a fixed pool of platform threads is used.
+ */
+@Slf4j
+@Component
+public class TaskExecutors {
+
+    private final boolean virtual;
+
+    public TaskExecutors(@Value("${application.threads.virtual:false}") boolean virtualRequested) {
+        this.virtual = virtualRequested && VirtualThreads.isSupported();
+        if (virtualRequested && !virtual) {
+            log.warn("application.threads.virtual=true needs JDK 21+, using platform threads");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public ExecutorService newBlockingPool(String name, int parallelism) {
+        if (virtual) {
+            return VirtualThreads.newThreadPerTaskExecutor(name);
+        }
+        return Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory(name));
+    }
+}
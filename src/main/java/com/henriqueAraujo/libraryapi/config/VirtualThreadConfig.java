@@ -0,0 +1,61 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in virtual thread mode ({@code application.threads.virtual=true},
+ * JDK 21+). Tomcat hands every request to a new virtual thread, the
+ * scheduled jobs run on virtual threads, and the DataSource is wrapped in a
+ * {@link BulkheadDataSource} sized like the connection pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(TaskExecutors taskExecutors) {
+        return protocolHandler -> {
+            if (taskExecutors.isVirtual()) {
+                protocolHandler.setExecutor(taskExecutors.newBlockingPool("http-vt-", 0));
+            }
+        };
+    }
+
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadScheduler(TaskExecutors taskExecutors) {
+        return scheduler -> {
+            if (taskExecutors.isVirtual()) {
+                scheduler.setThreadFactory(VirtualThreads.factory("scheduling-vt-"));
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkhead(Environment environment) {
+        int permits = environment.getProperty("application.datasource.bulkhead.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeout = environment.getProperty("application.datasource.bulkhead.timeout-ms", Long.class, 30000L);
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof BulkheadDataSource) && VirtualThreads.isSupported()) {
+                    log.info("Limiting {} to {} concurrent connections", beanName, permits);
+                    return new BulkheadDataSource((DataSource) bean, permits, timeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
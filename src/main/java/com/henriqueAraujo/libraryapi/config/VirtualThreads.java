@@ -0,0 +1,69 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to JDK 21 virtual threads while the project still compiles for
+ * Java 11. Everything goes through reflection; on older JDKs
+ * {@link #isSupported()} is false.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = lookup(Thread.class, "ofVirtual");
+    private static final Method NAME = lookup("java.lang.Thread$Builder", "name", String.class, long.class);
+    private static final Method FACTORY = lookup("java.lang.Thread$Builder", "factory");
+    private static final Method PER_TASK = lookup(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null || PER_TASK == null) {
+            return false;
+        }
+        try {
+            factory("probe-");
+            return true;
+        } catch (IllegalStateException ex) {
+            return false;
+        }
+    }
+
+    /** Factory of virtual threads named prefix0, prefix1, ... */
+    public static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new IllegalStateException("Virtual threads are not available", ex);
+        }
+    }
+
+    /** Executor that starts one new virtual thread per task. */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            return (ExecutorService) PER_TASK.invoke(null, factory(prefix));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Virtual threads are not available", ex);
+        }
+    }
+
+    private static Method lookup(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return lookup(Class.forName(className), name, parameterTypes);
+        } catch (ClassNotFoundException ex) {
+            return null;
+        }
+    }
+
+    private static Method lookup(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
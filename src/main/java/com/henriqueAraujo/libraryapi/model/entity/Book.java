@@ -17,12 +17,15 @@ import java.util.List;
 public class Book {
 
 
+    /** Drawn from book_seq in pooled-lo blocks of 50, like Loan.id, so inserts can be batched. */
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
-    @Column
+    /** Keyset pagination sort key, so never null (see V10). */
+    @Column(nullable = false)
     private String title;
 
     @Column
@@ -31,6 +34,15 @@ public class Book {
     @Column
     private String isbn;
 
+    /** Picks the loan period, see LoanPolicies. */
+    @Column(length = 50)
+    private String category;
+
+    /** Bumped by every update; the ETag of GET /api/books/{id} and the If-Match of PUT. */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany( mappedBy  = "book")
     private List<Loan> loan;
 
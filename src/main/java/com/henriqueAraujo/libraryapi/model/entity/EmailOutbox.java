@@ -0,0 +1,60 @@
+package com.henriqueAraujo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be delivered. Rows are written in the same transaction
+ * as the business change and sent later by the EmailDispatcher.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox")
+public class EmailOutbox {
+
+    /** SENDING rows are claimed by one dispatcher until next_attempt_at. */
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Comma separated list of addresses. */
+    @Column(nullable = false, length = 2000)
+    private String recipients;
+
+    @Column
+    private String subject;
+
+    @Lob
+    @Column
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
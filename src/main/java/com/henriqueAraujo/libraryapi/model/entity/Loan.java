@@ -17,9 +17,14 @@ import java.time.LocalDate;
 @Entity
 public class Loan {
 
+    /**
+     * Drawn from loan_seq in blocks of 50 (pooled-lo), so inserts can be
+     * batched; IDENTITY would force one round trip per row.
+     */
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 100)
@@ -29,12 +34,61 @@ public class Loan {
     private String customerEmail;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
-    @Column
+    /** Keyset pagination sort key, so never null (see V10). */
+    @Column(nullable = false)
     private LocalDate loanDate;
 
-    @Column
-    private Boolean returned;
+    /** Set at checkout from the LoanPolicies of the book category and customer class. */
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "customer_class", length = 30)
+    private String customerClass;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private LoanStatus status;
+
+    /** Bumped by every update, including the bulk LoanRepository.markReturned. */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Book id while the loan is active, null once returned. Unique in the
+     * database, so a book can have only one active loan.
+     */
+    @Column(name = "active_book_id", unique = true)
+    private Long activeBookId;
+
+    public Boolean getReturned() {
+        return status == LoanStatus.RETURNED;
+    }
+
+    public void setReturned(Boolean returned) {
+        status = Boolean.TRUE.equals(returned) ? LoanStatus.RETURNED : LoanStatus.ACTIVE;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateStatus() {
+        if (status == null) {
+            status = LoanStatus.ACTIVE;
+        }
+        if (loanDate == null) {
+            loanDate = LocalDate.now();
+        }
+        activeBookId = status == LoanStatus.ACTIVE && book != null ? book.getId() : null;
+    }
+
+    public static class LoanBuilder {
+
+        public LoanBuilder returned(Boolean returned) {
+            this.status = Boolean.TRUE.equals(returned) ? LoanStatus.RETURNED : LoanStatus.ACTIVE;
+            return this;
+        }
+    }
 }
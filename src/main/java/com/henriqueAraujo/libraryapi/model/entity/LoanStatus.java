@@ -0,0 +1,6 @@
+package com.henriqueAraujo.libraryapi.model.entity;
+
+public enum LoanStatus {
+    ACTIVE,
+    RETURNED
+}
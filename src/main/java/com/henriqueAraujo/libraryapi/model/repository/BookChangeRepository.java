@@ -0,0 +1,25 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import com.henriqueAraujo.libraryapi.model.entity.BookChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    List<BookChange> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query(" select max(c.id) from BookChange c ")
+    Long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query(" delete from BookChange c where c.changedAt < :before ")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
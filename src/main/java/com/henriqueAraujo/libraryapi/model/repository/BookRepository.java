@@ -1,9 +1,22 @@
 package com.henriqueAraujo.libraryapi.model.repository;
 
 import com.henriqueAraujo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -12,5 +25,83 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     Optional<Book> findByIsbn(String isbn);
 
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    @Query(" select b.isbn from Book b where b.isbn in :isbns ")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query(" select b from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) ")
+    Slice<Book> findSliceByFilter(
+                                  @Param("title") String title,
+                                  @Param("author") String author,
+                                  @Param("isbn") String isbn,
+                                  Pageable pageable);
+
+    /** Seeks idx_book_title_id from the cursor; the >= bound lets the database use it for the range. */
+    @Query(" select b from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+            " and b.title >= :afterTitle " +
+            " and ( b.title > :afterTitle or ( b.title = :afterTitle and b.id > :afterId ) ) " +
+            " order by b.title, b.id ")
+    List<Book> findByFilterAfter(
+                                 @Param("title") String title,
+                                 @Param("author") String author,
+                                 @Param("isbn") String isbn,
+                                 @Param("afterTitle") String afterTitle,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    @Query(" select b.id from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+            " order by b.id ")
+    List<Long> findIdsByFilter(
+                               @Param("title") String title,
+                               @Param("author") String author,
+                               @Param("isbn") String isbn);
+
+    @Query(" select b from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+            " and not exists ( select l.id from Loan l where l.activeBookId = b.id ) ")
+    Page<Book> findAvailableByFilter(
+                                     @Param("title") String title,
+                                     @Param("author") String author,
+                                     @Param("isbn") String isbn,
+                                     Pageable pageable);
+
+    @Query(" select b from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+            " and exists ( select l.id from Loan l where l.activeBookId = b.id ) ")
+    Page<Book> findLoanedByFilter(
+                                  @Param("title") String title,
+                                  @Param("author") String author,
+                                  @Param("isbn") String isbn,
+                                  Pageable pageable);
 
+    /** Every matching book in id order, read lazily 1000 rows per fetch; close the stream. */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(" select b from Book b " +
+            " where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+            " and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+            " and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+            " order by b.id ")
+    Stream<Book> streamByFilter(
+                                @Param("title") String title,
+                                @Param("author") String author,
+                                @Param("isbn") String isbn);
 }
@@ -0,0 +1,26 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import com.henriqueAraujo.libraryapi.model.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long>, EmailOutboxRepositoryCustom {
+
+    List<EmailOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            EmailOutbox.Status status, LocalDateTime now, Pageable pageable);
+
+    /** Puts back rows whose claim ran out, left behind by a node that died while sending. */
+    @Transactional
+    @Modifying
+    @Query(" update EmailOutbox e set e.status = :to where e.status = :from and e.nextAttemptAt <= :now ")
+    int releaseExpiredClaims(@Param("from") EmailOutbox.Status from,
+                             @Param("to") EmailOutbox.Status to,
+                             @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepositoryCustom {
+
+    /**
+     * Claims each row (PENDING to SENDING until {@code until}) with its own
+     * conditional update, all sent in one JDBC batch and one commit. Element
+     * i is true when this call won ids[i]; false when another dispatcher
+     * claimed it first or it is no longer pending.
+     */
+    @Transactional
+    boolean[] claim(List<Long> ids, LocalDateTime until);
+}
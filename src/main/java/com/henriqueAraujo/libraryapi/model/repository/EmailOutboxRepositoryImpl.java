@@ -0,0 +1,44 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Custom part of EmailOutboxRepository, picked up by Spring Data from the Impl suffix. */
+public class EmailOutboxRepositoryImpl implements EmailOutboxRepositoryCustom {
+
+    private static final String CLAIM =
+            "update email_outbox set status = 'SENDING', next_attempt_at = ? " +
+            "where id = ? and status = 'PENDING'";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean[] claim(List<Long> ids, LocalDateTime until) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        boolean[] claimed = new boolean[ids.size()];
+        Timestamp claimedUntil = Timestamp.valueOf(until);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CLAIM)) {
+                for (Long id : ids) {
+                    statement.setTimestamp(1, claimedUntil);
+                    statement.setLong(2, id);
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    claimed[i] = counts[i] == 1;
+                }
+            }
+        });
+        session.clear();
+        return claimed;
+    }
+}
@@ -6,29 +6,96 @@ import com.henriqueAraujo.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
 
     @Query(value = " select case when ( count(l.id) > 0 ) then true else false end " +
-            " from Loan l where l.book = :book and ( l.returned is null or l.returned is false) ")
+            " from Loan l where l.book = :book and l.status = com.henriqueAraujo.libraryapi.model.entity.LoanStatus.ACTIVE ")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
 
-    @Query(value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    @Query(value = " select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer =:customer ",
+            countQuery = " select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
     Page<Loan> findByBookIsbnOrCustomer(
                                         @Param("isbn") String isbn,
                                         @Param("customer") String customer,
                                         Pageable pageable);
 
+    @Query(value = " select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    Slice<Loan> findSliceByBookIsbnOrCustomer(
+                                              @Param("isbn") String isbn,
+                                              @Param("customer") String customer,
+                                              Pageable pageable);
+
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageable);
 
-    @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false )")
-    List<Loan> findByLoanDateLessThanAndNotReturned( @Param("threeDaysAgo") LocalDate threeDaysAgo);
-}
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findSliceByBook(Book book, Pageable pageable);
+
+    /** Seeks idx_loan_date_id from the cursor, like BookRepository.findByFilterAfter. */
+    @Query(value = " select l from Loan as l join fetch l.book as b where ( b.isbn = :isbn or l.customer = :customer ) " +
+            " and l.loanDate >= :afterDate " +
+            " and ( l.loanDate > :afterDate or ( l.loanDate = :afterDate and l.id > :afterId ) ) " +
+            " order by l.loanDate, l.id ")
+    List<Loan> findByBookIsbnOrCustomerAfter(
+                                             @Param("isbn") String isbn,
+                                             @Param("customer") String customer,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query(" select l from Loan l where l.status = com.henriqueAraujo.libraryapi.model.entity.LoanStatus.ACTIVE and l.dueDate <= :today ")
+    List<Loan> findOverdue(@Param("today") LocalDate today);
+
+    @Query(" select l from Loan l join fetch l.book " +
+            " where l.status = com.henriqueAraujo.libraryapi.model.entity.LoanStatus.ACTIVE and l.dueDate <= :today " +
+            " and ( l.customerEmail > :afterEmail or ( l.customerEmail = :afterEmail and l.id > :afterId ) ) " +
+            " order by l.customerEmail, l.id ")
+    List<Loan> findLateLoansAfter(
+                                  @Param("today") LocalDate today,
+                                  @Param("afterEmail") String afterEmail,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+    @Query(" select l.activeBookId from Loan l where l.activeBookId > :afterBookId order by l.activeBookId ")
+    List<Long> findActiveBookIdsAfter(@Param("afterBookId") Long afterBookId, Pageable pageable);
 
+    @Query(" select l.activeBookId from Loan l where l.activeBookId in :bookIds ")
+    List<Long> findActiveBookIdsIn(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query(" select l from Loan l where l.id > :afterId and l.status = com.henriqueAraujo.libraryapi.model.entity.LoanStatus.ACTIVE order by l.id ")
+    List<Loan> findNotReturnedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(" select l from Loan l join fetch l.book where l.id in :ids ")
+    List<Loan> findWithBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(" select l from Loan l join fetch l.book b " +
+            " where b.isbn in :isbns and l.status = com.henriqueAraujo.libraryapi.model.entity.LoanStatus.ACTIVE ")
+    List<Loan> findActiveWithBookByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    /** Every matching loan with its book in id order, read lazily 1000 rows per fetch; close the stream. */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(" select l from Loan l join fetch l.book b " +
+            " where ( :isbn is null or b.isbn = :isbn ) and ( :customer is null or l.customer = :customer ) " +
+            " order by l.id ")
+    Stream<Loan> streamByFilter(@Param("isbn") String isbn, @Param("customer") String customer);
+
+}
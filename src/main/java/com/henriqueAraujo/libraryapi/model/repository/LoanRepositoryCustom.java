@@ -0,0 +1,13 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import java.util.List;
+
+public interface LoanRepositoryCustom {
+
+    /**
+     * Returns each loan with its own conditional update, all sent in one JDBC
+     * batch. Element i is true when this call returned ids[i]; false when it
+     * was already returned, by an earlier statement or a concurrent one.
+     */
+    boolean[] markReturned(List<Long> ids);
+}
@@ -0,0 +1,40 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/** Custom part of LoanRepository, picked up by Spring Data from the Impl suffix. */
+public class LoanRepositoryImpl implements LoanRepositoryCustom {
+
+    private static final String MARK_RETURNED =
+            "update loan set status = 'RETURNED', active_book_id = null, version = version + 1 " +
+            "where id = ? and status = 'ACTIVE'";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean[] markReturned(List<Long> ids) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        boolean[] returned = new boolean[ids.size()];
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_RETURNED)) {
+                for (Long id : ids) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    returned[i] = counts[i] == 1;
+                }
+            }
+        });
+        session.clear();
+        return returned;
+    }
+}
@@ -4,7 +4,10 @@ package com.henriqueAraujo.libraryapi.service;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookService {
@@ -19,5 +22,13 @@ public interface BookService {
 
     Page<Book> find( Book filter, Pageable pageRequest );
 
+    Slice<Book> findSlice( Book filter, Pageable pageRequest );
+
+    Page<Book> findByAvailability( Book filter, boolean available, Pageable pageRequest );
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    List<Book> getBooksByIsbns(Collection<String> isbns);
+
+    Slice<Book> findAfter( Book filter, String afterTitle, Long afterId, int size );
 }
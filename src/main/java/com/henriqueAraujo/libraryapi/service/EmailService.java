@@ -8,4 +8,7 @@ import java.util.List;
 public class EmailService {
     public void sendMails(String message, List<String> milsList) {
     }
+
+    public void sendMail(String message, String mail) {
+    }
 }
@@ -1,12 +1,18 @@
 package com.henriqueAraujo.libraryapi.service;
 
 
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnResultDTO;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,14 +20,28 @@ public interface LoanService {
 
     Loan save( Loan loan );
 
+    List<LoanCheckoutResultDTO> saveAll( List<Loan> loans );
+
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    List<LoanReturnResultDTO> returnLoans(LoanReturnBatchDTO batch);
+
     Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
 
+    Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable);
+
+    Slice<Loan> findAfter(LoanFilterDTO filterDTO, LocalDate afterLoanDate, Long afterId, int size);
+
     Page<Loan> getLoansByBook( Book book, Pageable pageable);
 
+    Slice<Loan> getLoanSliceByBook( Book book, Pageable pageable);
+
     List<Loan> getAllLateLoans();
 
+    List<Loan> getLateLoansAfter(String afterEmail, Long afterId, int size);
+
+    List<Loan> getLoansByIds(Collection<Long> ids);
+
 }
@@ -1,16 +1,47 @@
 package com.henriqueAraujo.libraryapi.service;
 
 
+import com.henriqueAraujo.libraryapi.config.TaskExecutors;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.entity.LoanStatus;
+import com.henriqueAraujo.libraryapi.service.index.OverdueTracker;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+/**
+ * Sends one digest per customer listing all of their late loans.
+ *
+ * Normally reminders go out continuously: every tick takes the loans whose
+ * reminder is due from the OverdueTracker and mails their customers. The
+ * daily scan below is the fallback while the tracker is still loading.
+ *
+ * Late loans are read in chunks ordered by (customerEmail, id). While one
+ * chunk's digests are being sent by a fixed pool, the next chunk is read; at
+ * most two chunks are in memory. The loans of the last customer of a chunk
+ * are held back until the next chunk, so a customer never gets two digests.
+ * After each chunk is fully sent the position is checkpointed; if a send
+ * fails the run stops and is resumed from that checkpoint.
+ */
+@Slf4j
 @Service
+@Lazy(false)
 @RequiredArgsConstructor
 public class ScheduleService {
 
@@ -19,19 +50,214 @@ public class ScheduleService {
     @Value("${application.mail.lateloans.message}")
     private String message;
 
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${application.mail.lateloans.parallelism:4}")
+    private int parallelism;
+
     private final LoanService loanService;
     private final EmailService emailService;
+    private final TaskExecutors taskExecutors;
+    private final OverdueTracker overdueTracker;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** Position after the last loan already notified; null when no run is pending. */
+    private volatile Checkpoint checkpoint;
+
+
+    /**
+     * Mails the customers whose reminder minute has come, one digest each.
+     * A loan is re-armed for the next day only after its digest was queued;
+     * loans that could not be loaded or mailed are retried on the next tick.
+     */
+    @Scheduled(fixedDelayString = "${application.mail.lateloans.tick-ms:60000}",
+               initialDelayString = "${application.mail.lateloans.tick-ms:60000}")
+    public void notifyDueLoans() {
+        if (!overdueTracker.isReady()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = overdueTracker.pollDue(now);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Loan>> byCustomer = new LinkedHashMap<>();
+        try {
+            for (int from = 0; from < due.size(); from += chunkSize) {
+                for (Loan loan : loanService.getLoansByIds(due.subList(from, Math.min(from + chunkSize, due.size())))) {
+                    if (loan.getStatus() == LoanStatus.RETURNED) {
+                        continue;
+                    }
+                    if (loan.getCustomerEmail() != null) {
+                        byCustomer.computeIfAbsent(loan.getCustomerEmail(), mail -> new ArrayList<>()).add(loan);
+                    } else {
+                        rearm(loan, now);
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            overdueTracker.retry(due, now);
+            log.warn("Could not load {} due loans, retrying on the next tick", due.size(), ex);
+            return;
+        }
+
+        int failed = 0;
+        for (Map.Entry<String, List<Loan>> customer : byCustomer.entrySet()) {
+            List<Loan> loans = customer.getValue();
+            try {
+                emailService.sendMail(digest(loans), customer.getKey());
+            } catch (RuntimeException ex) {
+                overdueTracker.retry(loans.stream().map(Loan::getId).collect(Collectors.toList()), now);
+                log.warn("Could not queue the overdue reminder of {}, retrying on the next tick", customer.getKey(), ex);
+                failed++;
+                continue;
+            }
+            loans.forEach(loan -> rearm(loan, now));
+        }
+        log.info("Overdue reminders: {} loans due, {} digests, {} failed", due.size(), byCustomer.size(), failed);
+    }
 
+    private void rearm(Loan loan, LocalDateTime now) {
+        if (loan.getDueDate() != null) {
+            overdueTracker.track(loan.getId(), loan.getCustomerEmail(), loan.getDueDate(), now);
+        }
+    }
 
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-      List<Loan> allLateLoans = loanService.getAllLateLoans();
-      List<String> milsList =  allLateLoans.stream()
-              .map( loan -> loan.getCustomerEmail() )
-              .collect(Collectors.toList());
+        if (overdueTracker.isReady()) {
+            return;
+        }
+        if (checkpoint == null) {
+            checkpoint = Checkpoint.START;
+        }
+        sendPendingDigests();
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.lateloans.resume-delay-ms:300000}",
+               initialDelayString = "${application.mail.lateloans.resume-delay-ms:300000}")
+    public void resumeLateLoans() {
+        if (checkpoint != null) {
+            sendPendingDigests();
+        }
+    }
+
+    private void sendPendingDigests() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        ExecutorService executor = taskExecutors.newBlockingPool("late-loans-", parallelism);
+        try {
+            Checkpoint read = checkpoint;
+            Checkpoint sent = read;
+            Checkpoint inFlightEnd = read;
+            List<Future<?>> inFlight = Collections.emptyList();
+            List<Loan> heldBack = new ArrayList<>();
+            int chunkNumber = 0;
+            boolean lastChunk;
+
+            log.info("Sending late loan digests from {}", read);
+            do {
+                List<Loan> chunk = loanService.getLateLoansAfter(read.email, read.id, chunkSize);
+                lastChunk = chunk.size() < chunkSize;
+                if (!chunk.isEmpty()) {
+                    read = Checkpoint.of(chunk.get(chunk.size() - 1));
+                }
+
+                heldBack.addAll(chunk);
+                List<List<Loan>> digests = groupByCustomer(heldBack);
+                heldBack = lastChunk || digests.isEmpty() ? new ArrayList<>() : digests.remove(digests.size() - 1);
+
+                await(inFlight);
+                sent = inFlightEnd;
+                checkpoint = sent;
+
+                inFlight = submit(executor, digests);
+                if (!digests.isEmpty()) {
+                    List<Loan> lastDigest = digests.get(digests.size() - 1);
+                    inFlightEnd = Checkpoint.of(lastDigest.get(lastDigest.size() - 1));
+                }
+                chunkNumber++;
+                log.info("Late loans chunk {}: {} loans read, {} digests queued, notified up to {}",
+                        chunkNumber, chunk.size(), digests.size(), sent);
+            } while (!lastChunk);
+
+            await(inFlight);
+            checkpoint = null;
+            log.info("Late loan digests sent ({} chunks)", chunkNumber);
+        } catch (ExecutionException ex) {
+            log.warn("Late loan digests stopped, resuming later from {}", checkpoint, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    private List<Future<?>> submit(ExecutorService executor, List<List<Loan>> digests) {
+        List<Future<?>> futures = new ArrayList<>(digests.size());
+        for (List<Loan> loans : digests) {
+            String mail = loans.get(0).getCustomerEmail();
+            String text = digest(loans);
+            futures.add(executor.submit(() -> emailService.sendMail(text, mail)));
+        }
+        return futures;
+    }
+
+    private void await(List<Future<?>> futures) throws ExecutionException, InterruptedException {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private List<List<Loan>> groupByCustomer(List<Loan> loans) {
+        List<List<Loan>> groups = new ArrayList<>();
+        List<Loan> current = null;
+        for (Loan loan : loans) {
+            if (current == null || !Objects.equals(current.get(0).getCustomerEmail(), loan.getCustomerEmail())) {
+                current = new ArrayList<>();
+                groups.add(current);
+            }
+            current.add(loan);
+        }
+        return groups;
+    }
+
+    private String digest(List<Loan> loans) {
+        StringBuilder text = new StringBuilder(message).append("\n");
+        for (Loan loan : loans) {
+            text.append("\n- ")
+                    .append(loan.getBook().getTitle())
+                    .append(" (isbn ").append(loan.getBook().getIsbn()).append("), ")
+                    .append(loan.getLoanDate());
+        }
+        return text.toString();
+    }
+
+    private static final class Checkpoint {
+
+        static final Checkpoint START = new Checkpoint("", 0L);
+
+        final String email;
+        final Long id;
+
+        private Checkpoint(String email, Long id) {
+            this.email = email;
+            this.id = id;
+        }
 
+        static Checkpoint of(Loan loan) {
+            return new Checkpoint(loan.getCustomerEmail(), loan.getId());
+        }
 
-      emailService.sendMails(message, milsList);
+        @Override
+        public String toString() {
+            return "(" + email + ", " + id + ")";
+        }
     }
 
 }
@@ -0,0 +1,115 @@
+package com.henriqueAraujo.libraryapi.service.cache;
+
+import com.henriqueAraujo.libraryapi.model.entity.BookChange;
+import com.henriqueAraujo.libraryapi.model.repository.BookChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carries book evictions between nodes through the book_change_log table,
+ * without a broker. Every poll reads the rows after the last one seen and
+ * evicts their books from the local BookNearCache; a node starts after the
+ * rows already in the log, since its cache is empty.
+ *
+ * Ids are handed out before commit, so a row can become visible after a
+ * higher id was already read. Skipped ids are remembered and asked for again
+ * for {@code gap-timeout-ms}; ids of rolled back transactions never show up
+ * and are dropped after that.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class BookChangePoller {
+
+    private static final int MAX_GAPS = 1000;
+
+    @Value("${application.books.cache.poll-batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.books.cache.gap-timeout-ms:10000}")
+    private long gapTimeoutMs;
+
+    @Value("${application.books.change-log.retention-ms:3600000}")
+    private long retentionMs;
+
+    private final BookChangeRepository repository;
+    private final BookNearCache nearCache;
+
+    private long lastSeenId;
+
+    /** Skipped ids and when to stop asking for them, in epoch millis. */
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    @PostConstruct
+    public synchronized void start() {
+        Long maxId = repository.findMaxId();
+        lastSeenId = maxId == null ? 0L : maxId;
+    }
+
+    /**
+     * Evicts the books changed since the last poll.
+     *
+     * @return how many change rows were read
+     */
+    @Scheduled(fixedDelayString = "${application.books.cache.poll-ms:1000}",
+               initialDelayString = "${application.books.cache.poll-ms:1000}")
+    public synchronized int poll() {
+        long now = System.currentTimeMillis();
+        int read = pollGaps(now);
+        List<BookChange> batch;
+        do {
+            batch = repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, batchSize));
+            for (BookChange change : batch) {
+                for (long id = lastSeenId + 1; id < change.getId() && gaps.size() < MAX_GAPS; id++) {
+                    gaps.put(id, now + gapTimeoutMs);
+                }
+                nearCache.invalidate(change.getBookId());
+                lastSeenId = change.getId();
+            }
+            read += batch.size();
+        } while (batch.size() == batchSize);
+        return read;
+    }
+
+    private int pollGaps(long now) {
+        if (gaps.isEmpty()) {
+            return 0;
+        }
+        List<BookChange> found = repository.findAllById(gaps.keySet());
+        for (BookChange change : found) {
+            nearCache.invalidate(change.getBookId());
+            gaps.remove(change.getId());
+        }
+        Iterator<Long> deadlines = gaps.values().iterator();
+        while (deadlines.hasNext()) {
+            if (deadlines.next() <= now) {
+                deadlines.remove();
+            }
+        }
+        return found.size();
+    }
+
+    /** Deletes change rows older than {@code retention-ms}; every node polls far more often. */
+    @Scheduled(fixedDelayString = "${application.books.change-log.prune-ms:600000}",
+               initialDelayString = "${application.books.change-log.prune-ms:600000}")
+    public void prune() {
+        int deleted = repository.deleteOlderThan(LocalDateTime.now().minus(Duration.ofMillis(retentionMs)));
+        if (deleted > 0) {
+            log.info("Pruned {} book change log rows", deleted);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.henriqueAraujo.libraryapi.service.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Published by BookServiceImpl when a book is updated or deleted. */
+@Getter
+@RequiredArgsConstructor
+public class BookChangedEvent {
+
+    private final Long bookId;
+}
@@ -0,0 +1,148 @@
+package com.henriqueAraujo.libraryapi.service.cache;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Books by id, kept in memory in front of BookServiceImpl.getById.
+ *
+ * At most {@code max-size} books are kept, least recently read evicted
+ * first, and an entry is dropped {@code ttl-ms} after it was loaded. A book
+ * is evicted after the transaction that updates or deletes it commits
+ * (BookChangedEvent); other nodes evict it when BookChangePoller reads the
+ * change log. Callers get a copy, so changing the returned book does not
+ * change the cache.
+ *
+ * A load that overlaps an eviction is returned but not cached, otherwise it
+ * could put back the value the eviction was meant to remove.
+ */
+@Component
+public class BookNearCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    /** Access ordered, so iteration starts at the least recently read book. Guarded by this. */
+    private final LinkedHashMap<Long, Entry> entries;
+
+    /** Bumped by every invalidation. Guarded by this. */
+    private long generation;
+
+    @Autowired
+    public BookNearCache(MeterRegistry registry,
+                         @Value("${application.books.cache.max-size:10000}") int maxSize,
+                         @Value("${application.books.cache.ttl-ms:600000}") long ttlMs) {
+        this(registry, maxSize, ttlMs, System::nanoTime);
+    }
+
+    BookNearCache(MeterRegistry registry, int maxSize, long ttlMs, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = clock;
+        this.hits = counter(registry, "library.books.cache.gets", "result", "hit");
+        this.misses = counter(registry, "library.books.cache.gets", "result", "miss");
+        this.sizeEvictions = counter(registry, "library.books.cache.evictions", "cause", "size");
+        this.expirations = counter(registry, "library.books.cache.evictions", "cause", "expired");
+        this.invalidations = counter(registry, "library.books.cache.evictions", "cause", "invalidated");
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > BookNearCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        registry.gauge("library.books.cache.size", this, BookNearCache::size);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(registry);
+    }
+
+    /** The cached book, or the loader's result, cached when present. */
+    public Optional<Book> get(Long id, Function<Long, Optional<Book>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return Optional.of(copy(entry.book));
+                }
+                entries.remove(id);
+                expirations.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        Optional<Book> loaded = loader.apply(id);
+        loaded.ifPresent(book -> put(id, copy(book), loadGeneration));
+        return loaded;
+    }
+
+    private synchronized void put(Long id, Book book, long loadGeneration) {
+        if (generation == loadGeneration) {
+            entries.put(id, new Entry(book, clock.getAsLong()));
+        }
+    }
+
+    public synchronized void invalidate(Long id) {
+        generation++;
+        if (entries.remove(id) != null) {
+            invalidations.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(event.getBookId());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .category(book.getCategory())
+                .version(book.getVersion())
+                .build();
+    }
+
+    private static final class Entry {
+
+        final Book book;
+        final long loadedAt;
+
+        Entry(Book book, long loadedAt) {
+            this.book = book;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
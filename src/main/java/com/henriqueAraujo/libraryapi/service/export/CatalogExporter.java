@@ -0,0 +1,71 @@
+package com.henriqueAraujo.libraryapi.service.export;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Walks whole tables for the export endpoints. Rows come from a streaming
+ * query inside one read-only transaction and are handed to the consumer one
+ * at a time; the persistence context is cleared every
+ * {@code application.export.clear-every} rows, so memory does not grow with
+ * the table.
+ */
+@Component
+public class CatalogExporter {
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int clearEvery;
+
+    public CatalogExporter(BookRepository bookRepository,
+                           LoanRepository loanRepository,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${application.export.clear-every:500}") int clearEvery) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.clearEvery = clearEvery;
+    }
+
+    public long forEachBook(String title, String author, String isbn, Consumer<Book> consumer) {
+        return forEach(() -> bookRepository.streamByFilter(title, author, isbn), consumer);
+    }
+
+    public long forEachLoan(String isbn, String customer, Consumer<Loan> consumer) {
+        return forEach(() -> loanRepository.streamByFilter(isbn, customer), consumer);
+    }
+
+    private <T> long forEach(Supplier<Stream<T>> query, Consumer<T> consumer) {
+        Long rows = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<T> stream = query.get()) {
+                Iterator<T> it = stream.iterator();
+                while (it.hasNext()) {
+                    consumer.accept(it.next());
+                    if (++count % clearEvery == 0) {
+                        entityManager.clear();
+                    }
+                }
+            }
+            return count;
+        });
+        return rows == null ? 0 : rows;
+    }
+}
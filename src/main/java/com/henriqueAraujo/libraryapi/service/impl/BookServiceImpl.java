@@ -2,58 +2,159 @@ package com.henriqueAraujo.libraryapi.service.impl;
 
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.BookChange;
+import com.henriqueAraujo.libraryapi.model.repository.BookChangeRepository;
 import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
 import com.henriqueAraujo.libraryapi.service.BookService;
+import com.henriqueAraujo.libraryapi.service.cache.BookChangedEvent;
+import com.henriqueAraujo.libraryapi.service.cache.BookNearCache;
+import com.henriqueAraujo.libraryapi.service.index.AvailabilityIndex;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import com.henriqueAraujo.libraryapi.service.index.IsbnIndex;
+import com.henriqueAraujo.libraryapi.service.index.Isbns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final AvailabilityIndex availabilityIndex;
+    private final IsbnIndex isbnIndex;
+    private final BookNearCache nearCache;
+    private final BookChangeRepository changeRepository;
+    private final ApplicationEventPublisher events;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository,
+                           BookSearchIndex searchIndex,
+                           AvailabilityIndex availabilityIndex,
+                           IsbnIndex isbnIndex,
+                           BookNearCache nearCache,
+                           BookChangeRepository changeRepository,
+                           ApplicationEventPublisher events) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.isbnIndex = isbnIndex;
+        this.nearCache = nearCache;
+        this.changeRepository = changeRepository;
+        this.events = events;
     }
 
+    /**
+     * A valid ISBN is checked against the IsbnIndex only. A book created on
+     * another node and not known here yet is caught by the unique constraint.
+     */
     @Override
     public Book save(Book book) {
-        if( repository.existsByIsbn(book.getIsbn())) {
+        long key = Isbns.toKey(book.getIsbn());
+        boolean taken = key != Isbns.INVALID && isbnIndex.isReady()
+                ? findIndexed(key).isPresent()
+                : repository.existsByIsbn(book.getIsbn());
+        if( taken ) {
             throw new BusinessException("Isbn já cadastrado.");
         }
-        return  repository.save(book);
+        Book saved;
+        try {
+            saved = repository.save(book);
+        } catch (DataIntegrityViolationException ex) {
+            if (isIsbnViolation(ex)) {
+                throw new BusinessException("Isbn já cadastrado.");
+            }
+            throw ex;
+        }
+        searchIndex.index(saved);
+        indexIsbn(key, saved.getId());
+        return saved;
+    }
+
+    private boolean isIsbnViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(ISBN_CONSTRAINT);
     }
 
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        return nearCache.get(id, repository::findById);
     }
 
+    /**
+     * The search and isbn indexes drop the book after the commit, where
+     * fk_loan_book is checked: a book that still has loans stays findable.
+     */
     @Override
+    @Transactional
     public void delete(Book book) {
         if(book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null.");
 
         }
         this.repository.delete(book);
+        changed(book.getId());
+        Long id = book.getId();
+        long key = Isbns.toKey(book.getIsbn());
+        Transactions.afterCommit(() -> {
+            searchIndex.remove(id);
+            isbnIndex.remove(key, id);
+        });
     }
 
+    /** Like delete, the indexes see the new title, author and isbn only once they are committed. */
     @Override
+    @Transactional
     public Book update(Book book) {
         if(book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null.");
 
         }
-        return this.repository.save(book);
+        Book updated = this.repository.save(book);
+        changed(updated.getId());
+        Transactions.afterCommit(() -> {
+            searchIndex.index(updated);
+            indexIsbn(Isbns.toKey(updated.getIsbn()), updated.getId());
+        });
+        return updated;
+    }
+
+    /**
+     * Logs the change in the same transaction, for the other nodes'
+     * BookChangePoller; this node's near cache evicts the book on commit.
+     */
+    private void changed(Long bookId) {
+        changeRepository.save(BookChange.builder().bookId(bookId).changedAt(LocalDateTime.now()).build());
+        events.publishEvent(new BookChangedEvent(bookId));
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        if (canUseSearchIndex(filter, pageRequest)) {
+            return findIndexed(filter, pageRequest);
+        }
         Example<Book> example = Example.of(filter,
                 ExampleMatcher
                         .matching()
@@ -64,9 +165,146 @@ public class BookServiceImpl implements BookService {
                  return repository.findAll(example, pageRequest);
     }
 
+    /**
+     * Title/author searches go to the inverted index, ranked by relevance. The
+     * LIKE scan is kept for isbn and category filters, explicit sorts and
+     * while the index is still loading.
+     */
+    private boolean canUseSearchIndex(Book filter, Pageable pageRequest) {
+        return searchIndex.isReady()
+                && filter.getIsbn() == null
+                && filter.getCategory() == null
+                && pageRequest.getSort().isUnsorted()
+                && !(BookSearchIndex.tokenize(filter.getTitle()).isEmpty()
+                     && BookSearchIndex.tokenize(filter.getAuthor()).isEmpty());
+    }
+
+    private Page<Book> findIndexed(Book filter, Pageable pageRequest) {
+        return pageOfIds(searchIndex.search(filter.getTitle(), filter.getAuthor()), pageRequest);
+    }
+
+    /**
+     * Availability comes from the in-memory AvailabilityIndex: the matching
+     * ids (from the search index or an id-only query) are filtered against the
+     * bitmap, and only the requested page is loaded. Loan is not read. Sorted
+     * requests and a still-loading index use a NOT EXISTS query instead.
+     */
+    @Override
+    public Page<Book> findByAvailability(Book filter, boolean available, Pageable pageRequest) {
+        if (!availabilityIndex.isReady() || pageRequest.getSort().isSorted()) {
+            return available
+                    ? repository.findAvailableByFilter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest)
+                    : repository.findLoanedByFilter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+        }
+        List<Long> candidates = canUseSearchIndex(filter, pageRequest)
+                ? searchIndex.search(filter.getTitle(), filter.getAuthor())
+                : repository.findIdsByFilter(filter.getTitle(), filter.getAuthor(), filter.getIsbn());
+        return pageOfIds(availabilityIndex.filter(candidates, !available), pageRequest);
+    }
+
+    /**
+     * Loads one page of the ranked ids. An id whose book is gone is left out
+     * of the page and dropped from the search index, but still counted: the
+     * total is {@code ranked.size()} on every page, so it does not change as
+     * the client pages through one search. The next search no longer has it.
+     */
+    private Page<Book> pageOfIds(List<Long> ranked, Pageable pageRequest) {
+        List<Long> pageIds = ranked;
+        if (pageRequest.isPaged()) {
+            int from = (int) Math.min(pageRequest.getOffset(), ranked.size());
+            int to = Math.min(from + pageRequest.getPageSize(), ranked.size());
+            pageIds = ranked.subList(from, to);
+        }
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageRequest, ranked.size());
+        }
+
+        Map<Long, Book> books = repository.findAllById(pageIds)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> content = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            Book book = books.get(id);
+            if (book != null) {
+                content.add(book);
+            } else {
+                searchIndex.remove(id);
+            }
+        }
+        return new PageImpl<>(content, pageRequest, ranked.size());
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return repository.findSliceByFilter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+    }
+
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        long key = Isbns.toKey(isbn);
+        if (key != Isbns.INVALID && isbnIndex.isReady()) {
+            Optional<Book> indexed = findIndexed(key);
+            if (indexed.isPresent()) {
+                return indexed;
+            }
+        }
+        Optional<Book> book = repository.findByIsbn(isbn);
+        book.ifPresent(found -> indexIsbn(key, found.getId()));
+        return book;
+    }
+
+    /**
+     * Points the IsbnIndex at the book. A key left behind by a book changed
+     * on another node is taken over; a key held by a book that really has
+     * the ISBN, written in another form, stays with that book.
+     */
+    private void indexIsbn(long key, Long bookId) {
+        long other = isbnIndex.put(key, bookId);
+        if (other != IsbnIndex.MISSING && !findIndexed(key).isPresent()) {
+            other = isbnIndex.put(key, bookId);
+        }
+        if (other != IsbnIndex.MISSING) {
+            log.warn("Books {} and {} have the same ISBN {}", other, bookId, key);
+        }
+    }
+
+    /**
+     * The book the IsbnIndex points at, read through the near cache. An
+     * entry left behind by a change on another node is dropped.
+     */
+    private Optional<Book> findIndexed(long key) {
+        long id = isbnIndex.get(key);
+        if (id == IsbnIndex.MISSING) {
+            return Optional.empty();
+        }
+        Optional<Book> book = getById(id);
+        if (book.isPresent() && Isbns.toKey(book.get().getIsbn()) == key) {
+            return book;
+        }
+        isbnIndex.remove(key, id);
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Book> getBooksByIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return repository.findByIsbnIn(isbns);
+    }
+
+    @Override
+    public Slice<Book> findAfter(Book filter, String afterTitle, Long afterId, int size) {
+        List<Book> rows = repository.findByFilterAfter(
+                filter.getTitle(),
+                filter.getAuthor(),
+                filter.getIsbn(),
+                afterTitle == null ? "" : afterTitle,
+                afterId == null ? 0L : afterId,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
     }
 
 
@@ -1,34 +1,45 @@
 package com.henriqueAraujo.libraryapi.service.impl;
 
+import com.henriqueAraujo.libraryapi.model.entity.EmailOutbox;
+import com.henriqueAraujo.libraryapi.model.repository.EmailOutboxRepository;
 import com.henriqueAraujo.libraryapi.service.EmailService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Queues emails in the outbox table, joining the caller's transaction when
+ * there is one. Delivery is done by the EmailDispatcher.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl extends EmailService {
 
-    @Value("${application.mail.default-remetent}")
-    private String remetent;
+    static final String SUBJECT = "Livro com emprestimo atrasado.";
 
-    private final JavaMailSender javaMailSender;
+    private final EmailOutboxRepository outboxRepository;
 
     @Override
+    @Transactional
     public void sendMails(String message, List<String> mailsList) {
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com emprestimo atrasado.");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
-
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(EmailOutbox.builder()
+                .recipients(String.join(",", mailsList))
+                .subject(SUBJECT)
+                .body(message)
+                .status(EmailOutbox.Status.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
 
-        javaMailSender.send(mailMessage);
+    @Override
+    @Transactional
+    public void sendMail(String message, String mail) {
+        sendMails(message, Collections.singletonList(mail));
     }
 }
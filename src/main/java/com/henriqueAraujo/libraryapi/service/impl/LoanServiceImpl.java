@@ -1,31 +1,211 @@
 package com.henriqueAraujo.libraryapi.service.impl;
 
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnResultDTO;
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.entity.LoanStatus;
 import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
 import com.henriqueAraujo.libraryapi.service.LoanService;
+import com.henriqueAraujo.libraryapi.service.index.AvailabilityIndex;
+import com.henriqueAraujo.libraryapi.service.index.OverdueTracker;
+import com.henriqueAraujo.libraryapi.service.lock.StripedLocks;
+import com.henriqueAraujo.libraryapi.service.policy.LoanPolicies;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
+@Service
 public class LoanServiceImpl implements LoanService {
+
+    private static final LocalDate FIRST_LOAN_DATE = LocalDate.of(1, 1, 1);
+
+    private static final String ACTIVE_LOAN_CONSTRAINT = "uk_loan_active_book";
+
     private LoanRepository repository;
+    private StripedLocks checkoutLocks;
+    private AvailabilityIndex availabilityIndex;
+    private OverdueTracker overdueTracker;
+    private LoanPolicies loanPolicies;
+    private TransactionTemplate transactionTemplate;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, StripedLocks checkoutLocks,
+                           AvailabilityIndex availabilityIndex, OverdueTracker overdueTracker,
+                           LoanPolicies loanPolicies, PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.checkoutLocks = checkoutLocks;
+        this.availabilityIndex = availabilityIndex;
+        this.overdueTracker = overdueTracker;
+        this.loanPolicies = loanPolicies;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * Checks out a book. Concurrent checkouts of the same book in this process
+     * are serialized by a striped per-book lock; across processes the unique
+     * active_book_id column rejects the second active loan.
+     *
+     * Once the AvailabilityIndex is loaded a book it sees as available is
+     * inserted without the exists query; the constraint still catches a loan
+     * made by another node.
+     *
+     * The due date is fixed here from the LoanPolicies, so later policy
+     * changes do not move the due date of running loans.
+     */
     @Override
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook()) ){
-           throw new BusinessException("Book already loaned");
+        Long bookId = loan.getBook().getId();
+        Lock lock = checkoutLocks.forKey(bookId == null ? 0L : bookId);
+        lock.lock();
+        try {
+            if( isLoaned(loan.getBook()) ){
+               throw new BusinessException("Book already loaned");
+            }
+            if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+                loan.setDueDate(loanPolicies.dueDate(loan.getBook(), loan.getCustomerClass(), loan.getLoanDate()));
+            }
+            Loan saved = repository.save(loan);
+            if (bookId != null) {
+                availabilityIndex.markLoaned(bookId);
+            }
+            if (saved.getId() != null && saved.getDueDate() != null) {
+                overdueTracker.track(saved.getId(), saved.getCustomerEmail(), saved.getDueDate(), LocalDateTime.now());
+            }
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            if (isActiveLoanViolation(ex)) {
+                throw new BusinessException("Book already loaned");
+            }
+            throw ex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks out many books at once. The locks of all the books are taken in
+     * stripe order, their active loans are read with one query, and the new
+     * loans are inserted in JDBC batches (ids come from the pooled loan_seq).
+     * A book already on loan, or repeated in the list, is reported as
+     * ALREADY_LOANED and the rest still go through. The locks are held until
+     * the transaction has committed, so a concurrent checkout of one of the
+     * books in this process waits and then sees the new loan; if another node
+     * loaned one of the books meanwhile the constraint fails the whole batch.
+     * The indexes are updated once the transaction commits.
+     */
+    @Override
+    public List<LoanCheckoutResultDTO> saveAll(List<Loan> loans) {
+        Set<Long> bookIds = new LinkedHashSet<>();
+        for (Loan loan : loans) {
+            bookIds.add(loan.getBook().getId());
+        }
+        List<Lock> locks = checkoutLocks.forKeys(bookIds);
+        locks.forEach(Lock::lock);
+        try {
+            return transactionTemplate.execute(status -> checkout(loans, bookIds));
+        } catch (DataIntegrityViolationException ex) {
+            if (isActiveLoanViolation(ex)) {
+                throw new BusinessException("Book already loaned");
+            }
+            throw ex;
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private List<LoanCheckoutResultDTO> checkout(List<Loan> loans, Set<Long> bookIds) {
+        Set<Long> loaned = bookIds.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(repository.findActiveBookIdsIn(bookIds));
+        List<Loan> accepted = new ArrayList<>();
+        for (Loan loan : loans) {
+            if (loaned.add(loan.getBook().getId())) {
+                if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+                    loan.setDueDate(loanPolicies.dueDate(loan.getBook(), loan.getCustomerClass(), loan.getLoanDate()));
+                }
+                accepted.add(loan);
+            }
+        }
+        repository.saveAll(accepted);
+        repository.flush();
+
+        Transactions.afterCommit(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Loan loan : accepted) {
+                availabilityIndex.markLoaned(loan.getBook().getId());
+                if (loan.getDueDate() != null) {
+                    overdueTracker.track(loan.getId(), loan.getCustomerEmail(), loan.getDueDate(), now);
+                }
+            }
+        });
+
+        Set<Loan> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        saved.addAll(accepted);
+        List<LoanCheckoutResultDTO> results = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            results.add(saved.remove(loan)
+                    ? LoanCheckoutResultDTO.builder()
+                            .isbn(loan.getBook().getIsbn())
+                            .id(loan.getId())
+                            .dueDate(loan.getDueDate())
+                            .result(LoanCheckoutResultDTO.Result.LOANED)
+                            .build()
+                    : LoanCheckoutResultDTO.builder()
+                            .isbn(loan.getBook().getIsbn())
+                            .result(LoanCheckoutResultDTO.Result.ALREADY_LOANED)
+                            .build());
         }
-        return repository.save(loan);
+        return results;
+    }
+
+    /**
+     * The index can only be stale towards "loaned" when another node returned
+     * the book, so that answer is confirmed in the database.
+     */
+    private boolean isLoaned(Book book) {
+        if (book.getId() == null || !availabilityIndex.isReady()) {
+            return repository.existsByBookAndNotReturned(book);
+        }
+        if (!availabilityIndex.isLoaned(book.getId())) {
+            return false;
+        }
+        if (repository.existsByBookAndNotReturned(book)) {
+            return true;
+        }
+        availabilityIndex.markReturned(book.getId());
+        return false;
+    }
+
+    private boolean isActiveLoanViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(ACTIVE_LOAN_CONSTRAINT);
     }
 
     @Override
@@ -33,9 +213,127 @@ public class LoanServiceImpl implements LoanService {
         return repository.findById(id);
     }
 
+    /**
+     * Takes the book's checkout lock, like save, so the availability mark of
+     * a return cannot land after the mark of a checkout that followed it.
+     * Commits on its own (no surrounding transaction), so the mark goes in
+     * after the commit and before the lock is released.
+     */
     @Override
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Long bookId = loan.getBook() == null ? null : loan.getBook().getId();
+        Lock lock = checkoutLocks.forKey(bookId == null ? 0L : bookId);
+        lock.lock();
+        try {
+            Loan updated = repository.save(loan);
+            boolean returned = Boolean.TRUE.equals(updated.getReturned());
+            if (updated.getBook() != null && updated.getBook().getId() != null) {
+                if (returned) {
+                    availabilityIndex.markReturned(updated.getBook().getId());
+                } else {
+                    availabilityIndex.markLoaned(updated.getBook().getId());
+                }
+            }
+            if (updated.getId() != null) {
+                if (returned || updated.getDueDate() == null) {
+                    overdueTracker.untrack(updated.getId());
+                } else {
+                    overdueTracker.track(updated.getId(), updated.getCustomerEmail(), updated.getDueDate(), LocalDateTime.now());
+                }
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a batch of loans: one select per kind of key (ids, isbns), then
+     * one transaction with a JDBC batch of conditional updates, whatever the
+     * batch size. Results follow the request order, ids first. An item naming
+     * a loan that is already returned, returned earlier in the same batch or
+     * returned by a concurrent batch is reported as ALREADY_RETURNED. The
+     * checkout locks of the books are held, as in saveAll, until the indexes
+     * are updated after the commit.
+     */
+    @Override
+    public List<LoanReturnResultDTO> returnLoans(LoanReturnBatchDTO batch) {
+        List<Long> ids = batch.getIds() == null ? Collections.emptyList() : batch.getIds();
+        List<String> isbns = batch.getIsbns() == null ? Collections.emptyList() : batch.getIsbns();
+
+        Map<Long, Loan> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Loan loan : repository.findWithBookByIdIn(ids)) {
+                byId.put(loan.getId(), loan);
+            }
+        }
+        Map<String, Loan> byIsbn = new HashMap<>();
+        if (!isbns.isEmpty()) {
+            for (Loan loan : repository.findActiveWithBookByIsbnIn(isbns)) {
+                byIsbn.put(loan.getBook().getIsbn(), loan);
+            }
+        }
+
+        List<Loan> items = new ArrayList<>(ids.size() + isbns.size());
+        ids.forEach(id -> items.add(byId.get(id)));
+        isbns.forEach(isbn -> items.add(byIsbn.get(isbn)));
+
+        Map<Long, Loan> active = new LinkedHashMap<>();
+        for (Loan loan : items) {
+            if (loan != null && loan.getStatus() == LoanStatus.ACTIVE) {
+                active.putIfAbsent(loan.getId(), loan);
+            }
+        }
+        Map<Long, Loan> returned = active.isEmpty() ? new HashMap<>() : markReturned(active);
+
+        List<LoanReturnResultDTO> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Loan loan = items.get(i);
+            LoanReturnResultDTO.Result result;
+            if (loan == null) {
+                result = LoanReturnResultDTO.Result.NOT_FOUND;
+            } else if (returned.remove(loan.getId()) != null) {
+                result = LoanReturnResultDTO.Result.RETURNED;
+            } else {
+                result = LoanReturnResultDTO.Result.ALREADY_RETURNED;
+            }
+            results.add(LoanReturnResultDTO.builder()
+                    .id(loan == null ? null : loan.getId())
+                    .isbn(i < ids.size() ? null : isbns.get(i - ids.size()))
+                    .result(result)
+                    .build());
+        }
+        return results;
+    }
+
+    /** The loans this call flipped to RETURNED, by id. */
+    private Map<Long, Loan> markReturned(Map<Long, Loan> active) {
+        Set<Long> bookIds = new HashSet<>();
+        active.values().forEach(loan -> bookIds.add(loan.getBook().getId()));
+        List<Lock> locks = checkoutLocks.forKeys(bookIds);
+        locks.forEach(Lock::lock);
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Long> activeIds = new ArrayList<>(active.keySet());
+                boolean[] flipped = repository.markReturned(activeIds);
+                Map<Long, Loan> returned = new HashMap<>();
+                for (int i = 0; i < flipped.length; i++) {
+                    if (flipped[i]) {
+                        returned.put(activeIds.get(i), active.get(activeIds.get(i)));
+                    }
+                }
+                List<Loan> returnedLoans = new ArrayList<>(returned.values());
+                Transactions.afterCommit(() -> returnedLoans.forEach(loan -> {
+                    availabilityIndex.markReturned(loan.getBook().getId());
+                    overdueTracker.untrack(loan.getId());
+                }));
+                return returned;
+            });
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
     }
 
     @Override
@@ -43,17 +341,53 @@ public class LoanServiceImpl implements LoanService {
         return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
     }
 
+    @Override
+    public Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable) {
+        return repository.findSliceByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+    }
+
+    @Override
+    public Slice<Loan> findAfter(LoanFilterDTO filterDTO, LocalDate afterLoanDate, Long afterId, int size) {
+        List<Loan> rows = repository.findByBookIsbnOrCustomerAfter(
+                filterDTO.getIsbn(),
+                filterDTO.getCustomer(),
+                afterLoanDate == null ? FIRST_LOAN_DATE : afterLoanDate,
+                afterId == null ? 0L : afterId,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+    }
+
     @Override
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
         return repository.findByBook(book, pageable);
     }
 
+    @Override
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        return repository.findSliceByBook(book, pageable);
+    }
+
     @Override
     public List<Loan> getAllLateLoans() {
+        return repository.findOverdue(LocalDate.now());
+    }
 
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
+    @Override
+    public List<Loan> getLateLoansAfter(String afterEmail, Long afterId, int size) {
+        return repository.findLateLoansAfter(
+                LocalDate.now(),
+                afterEmail == null ? "" : afterEmail,
+                afterId == null ? 0L : afterId,
+                PageRequest.of(0, size));
+    }
 
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    @Override
+    public List<Loan> getLoansByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return repository.findWithBookByIdIn(ids);
     }
 }
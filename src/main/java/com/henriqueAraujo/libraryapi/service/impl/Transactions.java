@@ -0,0 +1,29 @@
+package com.henriqueAraujo.libraryapi.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Transaction hooks shared by the services that keep in-memory indexes. */
+final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or now when
+     * there is none. A rolled back transaction never runs it, so an index
+     * only sees changes the database kept.
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.henriqueAraujo.libraryapi.service.imports;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookImportReportDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import com.henriqueAraujo.libraryapi.service.index.IsbnIndex;
+import com.henriqueAraujo.libraryapi.service.index.Isbns;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a catalog of any size in constant memory. Rows are pulled from the
+ * iterator one chunk at a time; each chunk drops the isbns seen earlier in
+ * the chunk, checks the rest against the catalog, and inserts the new books
+ * in JDBC batches of the chunk size in its own transaction. The persistence
+ * context is cleared after every chunk. Duplicates across chunks are caught
+ * by the catalog check, since the earlier chunk is already committed.
+ *
+ * A valid ISBN is compared as its ISBN-13 (see {@link Isbns}), so
+ * 0-306-40615-2 and 9780306406157 are one book, in the chunk and, once the
+ * IsbnIndex is ready, against the catalog. Anything else is compared as
+ * written.
+ *
+ * A book inserted by someone else between the check and the insert breaks
+ * uk_book_isbn and rolls the chunk back; the chunk is then retried one row
+ * per transaction and the rows that still fail are reported as skipped.
+ */
+@Slf4j
+@Component
+public class BookImporter {
+
+    private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnIndex isbnIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BookImporter(BookRepository repository,
+                        BookSearchIndex searchIndex,
+                        IsbnIndex isbnIndex,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${application.books.import.chunk-size:1000}") int chunkSize) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.isbnIndex = isbnIndex;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public BookImportReportDTO importBooks(Iterator<Book> books) {
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        List<Book> chunk = new ArrayList<>(chunkSize);
+        while (books.hasNext()) {
+            Book book = books.next();
+            totals.read++;
+            if (isBlank(book.getIsbn()) || isBlank(book.getTitle())) {
+                totals.invalid++;
+                continue;
+            }
+            chunk.add(book);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, totals);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, totals);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long rowsPerSecond = totals.read * 1000 / Math.max(1, millis);
+        long duplicates = totals.read - totals.imported - totals.invalid - totals.skipped;
+        log.info("Imported {} of {} books ({} duplicates, {} invalid, {} skipped) in {} ms, {} rows/s",
+                totals.imported, totals.read, duplicates, totals.invalid, totals.skipped, millis, rowsPerSecond);
+        return BookImportReportDTO.builder()
+                .read(totals.read)
+                .imported(totals.imported)
+                .duplicates(duplicates)
+                .invalid(totals.invalid)
+                .skipped(totals.skipped)
+                .millis(millis)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    private void importChunk(List<Book> chunk, Totals totals) {
+        Map<String, Book> byIsbn = new LinkedHashMap<>();
+        for (Book book : chunk) {
+            byIsbn.putIfAbsent(sameBookKey(book.getIsbn()), book);
+        }
+        List<Book> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+                removeExisting(byIsbn.values());
+                List<Book> inserted = repository.saveAll(byIsbn.values());
+                repository.flush();
+                entityManager.clear();
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Import chunk of {} books rolled back, retrying row by row: {}", byIsbn.size(), ex.getMessage());
+            saved = importRows(byIsbn.values(), totals);
+        }
+        for (Book book : saved) {
+            searchIndex.index(book);
+            long key = Isbns.toKey(book.getIsbn());
+            long other = isbnIndex.put(key, book.getId());
+            if (other != IsbnIndex.MISSING) {
+                log.warn("Imported book {} has the same ISBN {} as book {}", book.getId(), key, other);
+            }
+        }
+        totals.imported += saved.size();
+    }
+
+    /** The ISBN-13 of a valid isbn, else the isbn as written. */
+    private static String sameBookKey(String isbn) {
+        long key = Isbns.toKey(isbn);
+        return key == Isbns.INVALID ? isbn : Long.toString(key);
+    }
+
+    /**
+     * Drops the books already in the catalog: by isbn as written with one IN
+     * query, and by ISBN-13 through the IsbnIndex. Index entries can be stale,
+     * so the books they point at are read back and their isbn compared.
+     */
+    private void removeExisting(Collection<Book> books) {
+        Set<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toSet());
+        Set<String> existingIsbns = new HashSet<>(repository.findExistingIsbns(isbns));
+        Set<Long> existingKeys = new HashSet<>();
+        if (isbnIndex.isReady()) {
+            List<Long> indexedIds = new ArrayList<>();
+            for (Book book : books) {
+                long id = isbnIndex.get(Isbns.toKey(book.getIsbn()));
+                if (id != IsbnIndex.MISSING) {
+                    indexedIds.add(id);
+                }
+            }
+            for (Book indexed : repository.findAllById(indexedIds)) {
+                long key = Isbns.toKey(indexed.getIsbn());
+                if (key != Isbns.INVALID) {
+                    existingKeys.add(key);
+                }
+            }
+        }
+        books.removeIf(book -> existingIsbns.contains(book.getIsbn())
+                || existingKeys.contains(Isbns.toKey(book.getIsbn())));
+    }
+
+    /** One transaction per row, so a row that breaks a constraint only loses itself. */
+    private List<Book> importRows(Collection<Book> books, Totals totals) {
+        List<Book> saved = new ArrayList<>(books.size());
+        for (Book book : books) {
+            // the rolled back chunk left its id and version on the book
+            book.setId(null);
+            book.setVersion(null);
+            try {
+                saved.add(transactionTemplate.execute(status -> {
+                    Book inserted = repository.saveAndFlush(book);
+                    entityManager.clear();
+                    return inserted;
+                }));
+            } catch (DataIntegrityViolationException ex) {
+                log.warn("Skipped imported book with isbn {}: {}", book.getIsbn(), ex.getMessage());
+                totals.skipped++;
+            }
+        }
+        return saved;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static final class Totals {
+
+        long read;
+        long invalid;
+        long imported;
+        long skipped;
+    }
+}
@@ -0,0 +1,131 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ids of the books that are on loan right now, in a compressed bitmap.
+ *
+ * LoanServiceImpl updates it after every committed checkout and return. It is
+ * rebuilt from the active loans at startup; loans that change while the
+ * rebuild runs are recorded and win over what the rebuild read. Until
+ * {@link #markReady()} callers must ask the database.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Roaring64NavigableMap loaned = new Roaring64NavigableMap();
+    private Roaring64NavigableMap rebuilding;
+    private Roaring64NavigableMap touched;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markLoaned(long bookId) {
+        lock.writeLock().lock();
+        try {
+            loaned.addLong(bookId);
+            if (rebuilding != null) {
+                rebuilding.addLong(bookId);
+                touched.addLong(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReturned(long bookId) {
+        lock.writeLock().lock();
+        try {
+            loaned.removeLong(bookId);
+            if (rebuilding != null) {
+                rebuilding.removeLong(bookId);
+                touched.addLong(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaned(long bookId) {
+        lock.readLock().lock();
+        try {
+            return loaned.contains(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Keeps the ids whose loaned state equals {@code loaned}, in order. */
+    public List<Long> filter(Collection<Long> bookIds, boolean loaned) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : bookIds) {
+                if (this.loaned.contains(id) == loaned) {
+                    result.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public long loanedCount() {
+        lock.readLock().lock();
+        try {
+            return loaned.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = new Roaring64NavigableMap();
+            touched = new Roaring64NavigableMap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds book ids read from the active loans during a rebuild. */
+    public void addRebuilt(Collection<Long> bookIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : bookIds) {
+                if (!touched.contains(id)) {
+                    rebuilding.addLong(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                rebuilding.runOptimize();
+                loaned = rebuilding;
+                rebuilding = null;
+                touched = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over Book.title and Book.author.
+ *
+ * Text is lower-cased, stripped of accents and split into words. A query
+ * matches a book when every query word is a prefix of some word of the field,
+ * and books are ranked by how many query words match exactly, then by id.
+ * The index answers searches only after {@link #markReady()}; until then
+ * BookServiceImpl keeps using the LIKE scan. A rebuild fills a new index
+ * like AvailabilityIndex: books indexed or removed while it runs are
+ * recorded and win over what the rebuild read.
+ */
+@Component
+public class BookSearchIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Fields fields = new Fields();
+    private Fields rebuilding;
+    private Set<Long> touched;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                fields = rebuilding;
+                rebuilding = null;
+                touched = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        List<String> titleTokens = tokenize(book.getTitle());
+        List<String> authorTokens = tokenize(book.getAuthor());
+        lock.writeLock().lock();
+        try {
+            fields.put(book.getId(), titleTokens, authorTokens);
+            if (rebuilding != null) {
+                rebuilding.put(book.getId(), titleTokens, authorTokens);
+                touched.add(book.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            fields.remove(bookId);
+            if (rebuilding != null) {
+                rebuilding.remove(bookId);
+                touched.add(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = new Fields();
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a book read during a rebuild, unless it changed meanwhile. */
+    public void addRebuilt(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        List<String> titleTokens = tokenize(book.getTitle());
+        List<String> authorTokens = tokenize(book.getAuthor());
+        lock.writeLock().lock();
+        try {
+            if (!touched.contains(book.getId())) {
+                rebuilding.put(book.getId(), titleTokens, authorTokens);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the books matching both filters (a null filter matches every book),
+     * best match first.
+     */
+    public List<Long> search(String titleQuery, String authorQuery) {
+        List<String> titleTokens = tokenize(titleQuery);
+        List<String> authorTokens = tokenize(authorQuery);
+
+        Map<Long, Integer> scores;
+        lock.readLock().lock();
+        try {
+            if (titleTokens.isEmpty()) {
+                scores = fields.author.match(authorTokens);
+            } else {
+                scores = fields.title.match(titleTokens);
+                if (!authorTokens.isEmpty()) {
+                    Map<Long, Integer> authorScores = fields.author.match(authorTokens);
+                    scores.keySet().retainAll(authorScores.keySet());
+                    for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+                        score.setValue(score.getValue() + authorScores.get(score.getKey()));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Integer> finalScores = scores;
+        List<Long> ranked = new ArrayList<>(finalScores.keySet());
+        ranked.sort(Comparator.<Long>comparingInt(finalScores::get).reversed().thenComparing(Comparator.naturalOrder()));
+        return ranked;
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** The indexed fields of one generation of the index. */
+    private static final class Fields {
+
+        final FieldIndex title = new FieldIndex();
+        final FieldIndex author = new FieldIndex();
+
+        void put(Long bookId, List<String> titleTokens, List<String> authorTokens) {
+            title.put(bookId, titleTokens);
+            author.put(bookId, authorTokens);
+        }
+
+        void remove(Long bookId) {
+            title.remove(bookId);
+            author.remove(bookId);
+        }
+    }
+
+    /**
+     * Postings of one field: word -> ids of the books containing it, kept
+     * sorted so prefix lookups are a range scan.
+     */
+    private static final class FieldIndex {
+
+        private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+        private final Map<Long, Set<String>> tokensByBook = new HashMap<>();
+
+        void put(Long bookId, List<String> tokens) {
+            remove(bookId);
+            Set<String> unique = new HashSet<>(tokens);
+            for (String token : unique) {
+                postings.computeIfAbsent(token, key -> new HashSet<>()).add(bookId);
+            }
+            tokensByBook.put(bookId, unique);
+        }
+
+        void remove(Long bookId) {
+            Set<String> tokens = tokensByBook.remove(bookId);
+            if (tokens == null) {
+                return;
+            }
+            for (String token : tokens) {
+                Set<Long> ids = postings.get(token);
+                ids.remove(bookId);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+
+        /**
+         * Books containing every query word, scored 2 per exact word and 1 per
+         * prefix-only word.
+         */
+        Map<Long, Integer> match(List<String> queryTokens) {
+            Map<Long, Integer> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Set<Long>> entry : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                    int score = entry.getKey().equals(queryToken) ? 2 : 1;
+                    for (Long id : entry.getValue()) {
+                        tokenScores.merge(id, score, Math::max);
+                    }
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+                        score.setValue(score.getValue() + tokenScores.get(score.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return scores == null ? new HashMap<>() : scores;
+        }
+    }
+}
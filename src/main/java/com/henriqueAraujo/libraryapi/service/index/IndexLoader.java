@@ -0,0 +1,101 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Builds the in-memory indexes (book search, isbn, availability, overdue loans)
+ * from the database once the application is up, off the startup thread;
+ * callers use the database until each index is ready. Rows are read in id
+ * order, one chunk at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexLoader {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnIndex isbnIndex;
+    private final AvailabilityIndex availabilityIndex;
+    private final OverdueTracker overdueTracker;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        searchIndex.beginRebuild();
+        isbnIndex.beginRebuild();
+        Long lastId = 0L;
+        List<Book> chunk;
+        do {
+            chunk = bookRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, CHUNK_SIZE));
+            for (Book book : chunk) {
+                searchIndex.addRebuilt(book);
+                long key = Isbns.toKey(book.getIsbn());
+                long other = isbnIndex.addRebuilt(key, book.getId());
+                if (other != IsbnIndex.MISSING) {
+                    log.warn("Books {} and {} have the same ISBN {}", other, book.getId(), key);
+                }
+                lastId = book.getId();
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+
+        searchIndex.markReady();
+        isbnIndex.markReady();
+
+        rebuildAvailability();
+        rebuildOverdue();
+    }
+
+    private void rebuildAvailability() {
+        availabilityIndex.beginRebuild();
+        Long lastBookId = 0L;
+        List<Long> chunk;
+        do {
+            chunk = loanRepository.findActiveBookIdsAfter(lastBookId, PageRequest.of(0, CHUNK_SIZE));
+            availabilityIndex.addRebuilt(chunk);
+            if (!chunk.isEmpty()) {
+                lastBookId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+
+        availabilityIndex.markReady();
+    }
+
+    private void rebuildOverdue() {
+        overdueTracker.beginRebuild();
+        LocalDateTime now = LocalDateTime.now();
+        Long lastId = 0L;
+        List<Loan> chunk;
+        do {
+            chunk = loanRepository.findNotReturnedAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+            for (Loan loan : chunk) {
+                if (loan.getDueDate() != null) {
+                    overdueTracker.addRebuilt(loan.getId(), loan.getCustomerEmail(), loan.getDueDate(), now);
+                }
+                lastId = loan.getId();
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+
+        overdueTracker.markReady();
+    }
+}
@@ -0,0 +1,283 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Book id by ISBN, for the existence check on create and the lookup on
+ * checkout. Keys are the ISBN-13 as a long (see {@link Isbns}) in an
+ * open-addressing table of two long arrays, so a million books take
+ * 16-32 MiB and no objects per entry; books whose isbn is not a valid ISBN
+ * are not indexed and are looked up in the database.
+ *
+ * Answers can be stale when another node changed the catalog: callers check
+ * the id they get against the book, and look up misses in the database.
+ * A key never silently moves to another book: {@link #put(long, long)}
+ * returns the book that holds it instead, so the caller can drop a stale
+ * entry or report two books with one ISBN written in different forms.
+ * Rebuilt at startup like AvailabilityIndex; until {@link #markReady()}
+ * callers must ask the database.
+ */
+@Slf4j
+@Component
+public class IsbnIndex implements MeterBinder {
+
+    /** Returned by {@link #get(long)} when the isbn is not indexed. */
+    public static final long MISSING = -1L;
+
+    private static final long ONE_MILLION = 1_000_000L;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongLongMap ids = new LongLongMap();
+    private LongLongMap rebuilding;
+    private LongLongMap touched;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long get(long key) {
+        lock.readLock().lock();
+        try {
+            return ids.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points the key at the book unless it points at another one.
+     *
+     * @return the other book's id, or {@link #MISSING} when the key now
+     *         points at {@code bookId}
+     */
+    public long put(long key, long bookId) {
+        if (key == Isbns.INVALID) {
+            return MISSING;
+        }
+        lock.writeLock().lock();
+        try {
+            long other = ids.get(key);
+            if (other != MISSING && other != bookId) {
+                return other;
+            }
+            ids.put(key, bookId);
+            if (rebuilding != null) {
+                rebuilding.put(key, bookId);
+                touched.put(key, 0L);
+            }
+            return MISSING;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes the key only while it still points at {@code bookId}. */
+    public void remove(long key, long bookId) {
+        if (key == Isbns.INVALID) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ids.get(key) == bookId) {
+                ids.remove(key);
+            }
+            if (rebuilding != null) {
+                if (rebuilding.get(key) == bookId) {
+                    rebuilding.remove(key);
+                }
+                touched.put(key, 0L);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Heap taken by the table arrays. */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return ids.memoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memoryBytesPerMillion() {
+        lock.readLock().lock();
+        try {
+            return ids.size() == 0 ? 0 : ids.memoryBytes() * ONE_MILLION / ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = new LongLongMap();
+            touched = new LongLongMap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book read during a rebuild, unless it changed meanwhile. The
+     * first book read for a key keeps it.
+     *
+     * @return the id of the book that already has the key, or {@link #MISSING}
+     */
+    public long addRebuilt(long key, long bookId) {
+        if (key == Isbns.INVALID) {
+            return MISSING;
+        }
+        lock.writeLock().lock();
+        try {
+            if (touched.get(key) != MISSING) {
+                return MISSING;
+            }
+            long other = rebuilding.get(key);
+            if (other != MISSING && other != bookId) {
+                return other;
+            }
+            rebuilding.put(key, bookId);
+            return MISSING;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                ids = rebuilding;
+                rebuilding = null;
+                touched = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("ISBN index ready: {} books, {} KiB, {} KiB per million books",
+                size(), memoryBytes() / 1024, memoryBytesPerMillion() / 1024);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.isbn.index.books", this, IsbnIndex::size).register(registry);
+        Gauge.builder("library.isbn.index.memory", this, IsbnIndex::memoryBytes)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("library.isbn.index.memory.per.million", this, IsbnIndex::memoryBytesPerMillion)
+                .baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Open addressing with linear probing over parallel arrays. Key 0 marks a
+     * free slot (no ISBN-13 is 0); the table doubles past 3/4 full and
+     * removal shifts the following entries back instead of leaving
+     * tombstones.
+     */
+    static final class LongLongMap {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return MISSING;
+        }
+
+        void put(long key, long value) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > keys.length / 4 * 3) {
+                resize();
+            }
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != key) {
+                if (keys[slot] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            size--;
+            int free = slot;
+            for (int next = (free + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = slot(keys[next], mask);
+                boolean between = free <= next ? free < home && home <= next : free < home || home <= next;
+                if (!between) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    free = next;
+                }
+            }
+            keys[free] = 0;
+            values[free] = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long memoryBytes() {
+            return (long) keys.length * Long.BYTES * 2;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
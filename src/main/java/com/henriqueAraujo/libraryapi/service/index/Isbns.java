@@ -0,0 +1,80 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+/**
+ * Turns an ISBN-10 or ISBN-13, with or without hyphens and spaces, into its
+ * ISBN-13 as a long. Both forms of a book give the same key; the check digit
+ * must be right.
+ */
+public final class Isbns {
+
+    /** Returned for anything that is not a valid ISBN. */
+    public static final long INVALID = -1L;
+
+    private Isbns() {
+    }
+
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        char[] digits = new char[13];
+        int length = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (length == digits.length) {
+                return INVALID;
+            }
+            digits[length++] = c;
+        }
+        if (length == 13) {
+            return isbn13(digits);
+        }
+        if (length == 10) {
+            return isbn10(digits);
+        }
+        return INVALID;
+    }
+
+    private static long isbn13(char[] digits) {
+        long key = 0;
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            int d = digit(digits[i]);
+            if (d < 0) {
+                return INVALID;
+            }
+            sum += i % 2 == 0 ? d : 3 * d;
+            key = key * 10 + d;
+        }
+        boolean bookland = digits[0] == '9' && digits[1] == '7' && (digits[2] == '8' || digits[2] == '9');
+        return bookland && sum % 10 == 0 ? key : INVALID;
+    }
+
+    private static long isbn10(char[] digits) {
+        long key = 978;
+        int sum10 = 0;
+        int sum13 = 9 + 3 * 7 + 8;
+        for (int i = 0; i < 9; i++) {
+            int d = digit(digits[i]);
+            if (d < 0) {
+                return INVALID;
+            }
+            sum10 += (10 - i) * d;
+            sum13 += (i % 2 == 0 ? 3 : 1) * d;
+            key = key * 10 + d;
+        }
+        char last = digits[9];
+        int check = last == 'X' || last == 'x' ? 10 : digit(last);
+        if (check < 0 || (sum10 + check) % 11 != 0) {
+            return INVALID;
+        }
+        return key * 10 + (10 - sum13 % 10) % 10;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
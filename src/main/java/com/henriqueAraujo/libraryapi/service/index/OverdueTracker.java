@@ -0,0 +1,193 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Active loans bucketed by the minute their next overdue reminder is due.
+ *
+ * A loan becomes overdue on its due date, set at checkout from the loan
+ * policies. Its reminder minute within that day comes from the customer's
+ * email, so reminders spread over the day instead of all firing at midnight,
+ * while the overdue loans of one customer share a minute and go out in one
+ * digest. {@link #pollDue} only touches the buckets that are due, so the cost
+ * follows the number of overdue loans, not the size of the loan table.
+ * Polled loans are re-armed for the same minute of the next day once their
+ * reminder is sent, or {@link #retry retried} on the next tick when it fails.
+ *
+ * Rebuilt from the database at startup; changes made while the rebuild runs
+ * win over what it read. Until {@link #markReady()} the daily scan in
+ * ScheduleService is used instead.
+ */
+@Component
+public class OverdueTracker {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final Lock lock = new ReentrantLock();
+    private final NavigableMap<Long, Set<Long>> slots = new TreeMap<>();
+    private final Map<Long, Long> slotByLoan = new HashMap<>();
+    private Set<Long> touched;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Tracks (or re-arms) an unreturned loan for its next reminder after {@code now}. */
+    public void track(long loanId, String customerEmail, LocalDate dueDate, LocalDateTime now) {
+        lock.lock();
+        try {
+            schedule(loanId, customerEmail, dueDate, now);
+            if (touched != null) {
+                touched.add(loanId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void untrack(long loanId) {
+        lock.lock();
+        try {
+            unschedule(loanId);
+            if (touched != null) {
+                touched.add(loanId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes and returns the ids of the loans whose reminder is due at {@code now}. */
+    public List<Long> pollDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Long, Set<Long>>> it = slots.headMap(epochMinute(now), true).entrySet().iterator();
+            while (it.hasNext()) {
+                for (Long loanId : it.next().getValue()) {
+                    slotByLoan.remove(loanId);
+                    due.add(loanId);
+                }
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    /**
+     * Puts polled loans whose reminder could not be sent back for the minute
+     * after {@code now}. Loans tracked again meanwhile keep their slot; a loan
+     * returned meanwhile is dropped by the caller on the next poll.
+     */
+    public void retry(Collection<Long> loanIds, LocalDateTime now) {
+        long slot = epochMinute(now) + 1;
+        lock.lock();
+        try {
+            for (Long loanId : loanIds) {
+                if (!slotByLoan.containsKey(loanId)) {
+                    slots.computeIfAbsent(slot, key -> new HashSet<>()).add(loanId);
+                    slotByLoan.put(loanId, slot);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return slotByLoan.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void beginRebuild() {
+        lock.lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Adds an unreturned loan read from the database during a rebuild. */
+    public void addRebuilt(long loanId, String customerEmail, LocalDate dueDate, LocalDateTime now) {
+        lock.lock();
+        try {
+            if (!touched.contains(loanId)) {
+                schedule(loanId, customerEmail, dueDate, now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.lock();
+        try {
+            touched = null;
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void schedule(long loanId, String customerEmail, LocalDate dueDate, LocalDateTime now) {
+        unschedule(loanId);
+        long slot = nextSlot(minuteOfDay(loanId, customerEmail), dueDate, epochMinute(now));
+        slots.computeIfAbsent(slot, key -> new HashSet<>()).add(loanId);
+        slotByLoan.put(loanId, slot);
+    }
+
+    private void unschedule(long loanId) {
+        Long slot = slotByLoan.remove(loanId);
+        if (slot != null) {
+            Set<Long> loans = slots.get(slot);
+            loans.remove(loanId);
+            if (loans.isEmpty()) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    /** The customer's reminder minute; loans without an email are spread by id. */
+    static long minuteOfDay(long loanId, String customerEmail) {
+        long hash = customerEmail == null ? loanId : customerEmail.hashCode();
+        return Math.floorMod(hash * 7919, MINUTES_PER_DAY);
+    }
+
+    /** First reminder minute strictly after now: the due minute, or the same minute on a later day. */
+    private long nextSlot(long minuteOfDay, LocalDate dueDate, long nowMinute) {
+        long due = epochMinute(dueDate.atStartOfDay()) + minuteOfDay;
+        if (due > nowMinute) {
+            return due;
+        }
+        long days = (nowMinute - due) / MINUTES_PER_DAY + 1;
+        return due + days * MINUTES_PER_DAY;
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+}
@@ -0,0 +1,62 @@
+package com.henriqueAraujo.libraryapi.service.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by key hash. Operations on the same key are
+ * serialized; different keys rarely share a stripe, so they run in parallel
+ * without one lock object per key.
+ */
+@Component
+public class StripedLocks {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    public StripedLocks(@Value("${application.loan.lock-stripes:1024}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Lock forKey(long key) {
+        return stripes[index(key)];
+    }
+
+    /**
+     * The distinct stripes of the keys, in stripe order. Callers that lock
+     * several keys take them in this order, so they cannot deadlock.
+     */
+    public List<Lock> forKeys(Collection<Long> keys) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (Long key : keys) {
+            indexes.add(index(key));
+        }
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,215 @@
+package com.henriqueAraujo.libraryapi.service.outbox;
+
+import com.henriqueAraujo.libraryapi.config.TaskExecutors;
+import com.henriqueAraujo.libraryapi.model.entity.EmailOutbox;
+import com.henriqueAraujo.libraryapi.model.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Drains the email outbox. Due rows are read in batches; each batch is split
+ * across a fixed pool and every slice goes out in a single
+ * {@link JavaMailSender#send(SimpleMailMessage...)} call, so one SMTP
+ * connection carries many messages. Failed rows are retried with exponential
+ * backoff and marked FAILED after {@code max-attempts}.
+ *
+ * The rows of a batch are claimed (PENDING to SENDING) before they are
+ * sent, with one conditional update per row in a single JDBC batch, so when
+ * several nodes or overlapping runs read the same rows each one goes out
+ * once. A claim lasts {@code claim-timeout-ms}; rows of a node
+ * that died while sending are pending again after that.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Value("${application.mail.default-remetent}")
+    private String remetent;
+
+    @Value("${application.mail.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${application.mail.outbox.parallelism:4}")
+    private int parallelism;
+
+    @Value("${application.mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${application.mail.outbox.backoff-ms:30000}")
+    private long backoffMs;
+
+    @Value("${application.mail.outbox.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender javaMailSender;
+    private final TaskExecutors taskExecutors;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = taskExecutors.newBlockingPool("email-dispatch-", parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Sends every email that is due now.
+     *
+     * @return how many emails were delivered
+     */
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-delay-ms:2000}",
+               initialDelayString = "${application.mail.outbox.poll-delay-ms:2000}")
+    public int dispatch() {
+        outboxRepository.releaseExpiredClaims(
+                EmailOutbox.Status.SENDING, EmailOutbox.Status.PENDING, LocalDateTime.now());
+        int delivered = 0;
+        List<EmailOutbox> batch;
+        do {
+            batch = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    EmailOutbox.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+            List<EmailOutbox> claimed = claim(batch);
+            if (!claimed.isEmpty()) {
+                delivered += send(claimed);
+                outboxRepository.saveAll(claimed);
+            }
+        } while (batch.size() == batchSize);
+        return delivered;
+    }
+
+    /** The rows of the batch this run won, in one round trip; the others went to another dispatcher. */
+    private List<EmailOutbox> claim(List<EmailOutbox> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        LocalDateTime until = LocalDateTime.now().plus(Duration.ofMillis(claimTimeoutMs));
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(email -> ids.add(email.getId()));
+        boolean[] won = outboxRepository.claim(ids, until);
+        List<EmailOutbox> claimed = new ArrayList<>(batch.size());
+        for (int i = 0; i < won.length; i++) {
+            if (won[i]) {
+                EmailOutbox email = batch.get(i);
+                email.setStatus(EmailOutbox.Status.SENDING);
+                email.setNextAttemptAt(until);
+                claimed.add(email);
+            }
+        }
+        return claimed;
+    }
+
+    private int send(List<EmailOutbox> batch) {
+        int sliceSize = (batch.size() + parallelism - 1) / parallelism;
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += sliceSize) {
+            List<EmailOutbox> slice = batch.subList(from, Math.min(from + sliceSize, batch.size()));
+            futures.add(executor.submit(() -> sendSlice(slice)));
+        }
+
+        int delivered = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                delivered += future.get();
+            } catch (ExecutionException ex) {
+                log.error("Could not send outbox slice, rows are retried when their claim runs out", ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    private int sendSlice(List<EmailOutbox> slice) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[slice.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = toMessage(slice.get(i));
+        }
+
+        Map<Object, Exception> failures = Collections.emptyMap();
+        Exception sliceFailure = null;
+        try {
+            javaMailSender.send(messages);
+        } catch (MailSendException ex) {
+            failures = ex.getFailedMessages();
+            sliceFailure = failures.isEmpty() ? ex : null;
+        } catch (MailException ex) {
+            sliceFailure = ex;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int delivered = 0;
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = sliceFailure != null ? sliceFailure : failures.get(messages[i]);
+            if (failure == null) {
+                markSent(slice.get(i), now);
+                delivered++;
+            } else {
+                markFailed(slice.get(i), failure, now);
+            }
+        }
+        return delivered;
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(remetent);
+        message.setTo(email.getRecipients().split(","));
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private void markSent(EmailOutbox email, LocalDateTime now) {
+        email.setStatus(EmailOutbox.Status.SENT);
+        email.setSentAt(now);
+        email.setLastError(null);
+    }
+
+    private void markFailed(EmailOutbox email, Exception failure, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(String.valueOf(failure.getMessage())));
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            log.warn("Giving up on outbox email {} after {} attempts", email.getId(), attempts);
+        } else {
+            long delay = backoffMs << Math.min(attempts - 1, 20);
+            email.setStatus(EmailOutbox.Status.PENDING);
+            email.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+        }
+    }
+
+    private String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
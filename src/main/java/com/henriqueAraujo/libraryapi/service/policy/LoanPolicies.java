@@ -0,0 +1,53 @@
+package com.henriqueAraujo.libraryapi.service.policy;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loan periods in days, configured under {@code application.loan.policies}.
+ * A customer class period wins over a book category period; with neither
+ * the default applies. Keys are matched ignoring case.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.loan.policies")
+public class LoanPolicies {
+
+    private int defaultDays = 4;
+
+    private Map<String, Integer> categoryDays = new HashMap<>();
+
+    private Map<String, Integer> customerClassDays = new HashMap<>();
+
+    public int loanDays(Book book, String customerClass) {
+        Integer days = lookup(customerClassDays, customerClass);
+        if (days == null && book != null) {
+            days = lookup(categoryDays, book.getCategory());
+        }
+        return days == null ? defaultDays : days;
+    }
+
+    public LocalDate dueDate(Book book, String customerClass, LocalDate loanDate) {
+        return loanDate.plusDays(loanDays(book, customerClass));
+    }
+
+    private static Integer lookup(Map<String, Integer> days, String key) {
+        if (key == null) {
+            return null;
+        }
+        Integer value = days.get(key);
+        if (value == null) {
+            value = days.get(key.toLowerCase(Locale.ROOT));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,34 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Moves loan ids from the identity column to loan_seq, which Hibernate
+ * allocates in blocks of 50 (pooled-lo) so loan inserts can be batched.
+ * The sequence starts after the highest existing id, which plain SQL cannot
+ * express. The column default also draws from loan_seq, so rows inserted
+ * without an id (scripts, benchmarks) never collide with a block handed to
+ * Hibernate.
+ */
+public class V6__Loan_id_sequence extends BaseJavaMigration {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long start;
+            try (ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) + 1 from loan")) {
+                rs.next();
+                start = rs.getLong(1);
+            }
+            statement.execute("create sequence loan_seq start with " + start + " increment by " + ALLOCATION_SIZE);
+            statement.execute("alter table loan alter column id drop identity");
+            statement.execute("alter table loan alter column id set default next value for loan_seq");
+        }
+    }
+}
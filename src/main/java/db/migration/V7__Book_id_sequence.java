@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Same move as V6 for book ids, so the bulk catalog import can batch its
+ * inserts.
+ */
+public class V7__Book_id_sequence extends BaseJavaMigration {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long start;
+            try (ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) + 1 from book")) {
+                rs.next();
+                start = rs.getLong(1);
+            }
+            statement.execute("create sequence book_seq start with " + start + " increment by " + ALLOCATION_SIZE);
+            statement.execute("alter table book alter column id drop identity");
+            statement.execute("alter table book alter column id set default next value for book_seq");
+        }
+    }
+}
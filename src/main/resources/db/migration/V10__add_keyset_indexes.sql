@@ -0,0 +1,14 @@
+-- keyset pagination seeks on (sort key, id), so a null sort key would drop out of the cursor
+-- order: book titles are required by BookDTO and the import already; loans without a date go
+-- first, on the date the first cursor starts from
+update book set title = '' where title is null;
+alter table book alter column title set not null;
+
+update loan set loan_date = date '0001-01-01' where loan_date is null;
+alter table loan alter column loan_date set not null;
+
+-- BookRepository.findByFilterAfter
+create index idx_book_title_id on book (title, id);
+
+-- LoanRepository.findByBookIsbnOrCustomerAfter
+create index idx_loan_date_id on loan (loan_date, id);
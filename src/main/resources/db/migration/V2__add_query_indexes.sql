@@ -0,0 +1,8 @@
+-- BookRepository.existsByIsbn / findByIsbn
+alter table book add constraint uk_book_isbn unique (isbn);
+
+-- LoanRepository.existsByBookAndNotReturned / findByBook
+create index idx_loan_book_returned on loan (id_book, returned);
+
+-- LoanRepository.findByLoanDateLessThanAndNotReturned
+create index idx_loan_date_returned on loan (loan_date, returned);
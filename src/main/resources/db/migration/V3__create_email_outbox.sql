@@ -0,0 +1,15 @@
+create table email_outbox (
+    id bigint generated by default as identity primary key,
+    recipients varchar(2000) not null,
+    subject varchar(255),
+    body clob,
+    status varchar(10) not null,
+    attempts int not null,
+    created_at timestamp not null,
+    next_attempt_at timestamp not null,
+    sent_at timestamp,
+    last_error varchar(500)
+);
+
+-- EmailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc
+create index idx_email_outbox_due on email_outbox (status, next_attempt_at);
@@ -0,0 +1,9 @@
+-- one active loan per book: active_book_id holds id_book until the loan is returned
+alter table loan add column active_book_id bigint;
+
+update loan l set active_book_id = l.id_book
+ where (l.returned is null or l.returned = false)
+   and l.id = (select max(x.id) from loan x
+                where x.id_book = l.id_book and (x.returned is null or x.returned = false));
+
+alter table loan add constraint uk_loan_active_book unique (active_book_id);
@@ -0,0 +1,23 @@
+-- loan periods come from LoanPolicies: book category and customer class
+alter table book add column category varchar(50);
+alter table loan add column customer_class varchar(30);
+
+-- due_date is fixed at checkout; existing loans had the old 4 day period
+alter table loan add column due_date date;
+alter table loan add column status varchar(10);
+
+update loan
+   set status = case when returned = true then 'RETURNED' else 'ACTIVE' end,
+       due_date = dateadd('DAY', 4, loan_date);
+
+alter table loan alter column status set not null;
+
+drop index idx_loan_book_returned;
+drop index idx_loan_date_returned;
+alter table loan drop column returned;
+
+-- LoanRepository.existsByBookAndNotReturned / findByBook
+create index idx_loan_book_status on loan (id_book, status);
+
+-- LoanRepository.findOverdue / findLateLoansAfter: range scan over the active loans past due
+create index idx_loan_status_due on loan (status, due_date);
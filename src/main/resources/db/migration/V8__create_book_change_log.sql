@@ -0,0 +1,9 @@
+-- one row per book update/delete; every node polls it to drop its cached copy (BookChangePoller)
+create table book_change_log (
+    id bigint generated by default as identity primary key,
+    book_id bigint not null,
+    changed_at timestamp not null
+);
+
+-- BookChangeRepository.deleteOlderThan
+create index idx_book_change_log_changed_at on book_change_log (changed_at);
@@ -0,0 +1,3 @@
+-- optimistic locking (@Version) and the ETags of BookController and LoanController
+alter table book add column version bigint default 0 not null;
+alter table loan add column version bigint default 0 not null;
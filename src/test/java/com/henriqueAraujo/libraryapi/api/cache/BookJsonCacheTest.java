@@ -0,0 +1,115 @@
+package com.henriqueAraujo.libraryapi.api.cache;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.service.cache.BookChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookJsonCacheTest {
+
+    SimpleMeterRegistry registry;
+    BookJsonCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new BookJsonCache(registry, 300);
+    }
+
+    @Test
+    @DisplayName("Deve devolver o json guardado fora do heap somente para a mesma versao")
+    public void hitOnSameVersionTest() {
+        put(1L, 0L);
+
+        ByteBuffer json = cache.get(1L, 0L);
+        assertThat(json.isDirect()).isTrue();
+        assertThat(json.isReadOnly()).isTrue();
+        assertThat(text(json)).isEqualTo(json(1L, 0L));
+        assertThat(text(cache.get(1L, 0L))).as("cada leitura tem sua posicao").isEqualTo(json(1L, 0L));
+        assertThat(cache.get(1L, 1L)).isNull();
+        assertThat(registry.get("library.books.json.cache.gets").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(registry.get("library.books.json.cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve substituir a versao anterior de um livro")
+    public void replaceVersionTest() {
+        put(1L, 0L);
+        put(1L, 1L);
+
+        assertThat(cache.get(1L, 0L)).isNull();
+        assertThat(text(cache.get(1L, 1L))).isEqualTo(json(1L, 1L));
+        assertThat(cache.offHeapBytes()).isEqualTo(json(1L, 1L).length());
+    }
+
+    @Test
+    @DisplayName("Deve remover o livro lido ha mais tempo ao passar do limite de memoria")
+    public void evictLeastRecentlyReadTest() {
+        long perEntry = json(1L, 0L).length();
+        long fit = 300 / perEntry;
+        for (long id = 1; id <= fit; id++) {
+            put(id, 0L);
+        }
+        cache.get(1L, 0L);
+        put(fit + 1, 0L);
+
+        assertThat(cache.offHeapBytes()).isLessThanOrEqualTo(300);
+        assertThat(cache.get(1L, 0L)).isNotNull();
+        assertThat(cache.get(2L, 0L)).isNull();
+        assertThat(registry.get("library.books.json.cache.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve remover o livro atualizado ou deletado")
+    public void invalidateTest() {
+        put(1L, 0L);
+        cache.onBookChanged(new BookChangedEvent(1L));
+
+        assertThat(cache.get(1L, 0L)).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.offHeapBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve informar quanto heap economiza em relacao a guardar os DTOs")
+    public void heapAvoidedTest() {
+        put(1L, 0L);
+        BookDTO dto = dto(1L);
+
+        long dtoBytes = BookJsonCache.dtoHeapBytes(dto);
+        assertThat(dtoBytes).isGreaterThan(BookJsonCache.ENTRY_HEAP_BYTES);
+        assertThat(cache.heapBytesAvoided()).isEqualTo(dtoBytes - BookJsonCache.ENTRY_HEAP_BYTES);
+        assertThat(registry.get("library.books.json.cache.heap.avoided").gauge().value()).isEqualTo(cache.heapBytesAvoided());
+    }
+
+    private void put(long id, long version) {
+        cache.put(id, version, dto(id), json(id, version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BookDTO dto(long id) {
+        return BookDTO.builder()
+                .id(id)
+                .title("As aventuras de um livro com um titulo comprido o bastante")
+                .author("Fulano de Tal")
+                .isbn("978-0-306-40615-7")
+                .category("referencia")
+                .build();
+    }
+
+    private static String json(long id, long version) {
+        return "{\"id\":\"" + String.format("%04d", id) + "\",\"version\":" + version + "}";
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
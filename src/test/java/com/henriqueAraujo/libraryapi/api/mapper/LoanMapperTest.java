@@ -0,0 +1,61 @@
+package com.henriqueAraujo.libraryapi.api.mapper;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanMapperTest {
+
+    BookMapper bookMapper = new BookMapper();
+    LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Test
+    @DisplayName("Deve converter um livro para DTO e de volta")
+    public void bookRoundTripTest() {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123").build();
+
+        BookDTO dto = bookMapper.toDto(book);
+        Book entity = bookMapper.toEntity(dto);
+
+        assertThat(dto.getId()).isEqualTo(1L);
+        assertThat(dto.getTitle()).isEqualTo("As aventuras");
+        assertThat(dto.getAuthor()).isEqualTo("Artur");
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(entity.getId()).isEqualTo(book.getId());
+        assertThat(entity.getTitle()).isEqualTo(book.getTitle());
+        assertThat(entity.getAuthor()).isEqualTo(book.getAuthor());
+        assertThat(entity.getIsbn()).isEqualTo(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Deve converter um emprestimo para DTO com o livro aninhado")
+    public void loanToDtoTest() {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123").build();
+        Loan loan = Loan.builder().id(10L).book(book).customer("Fulano")
+                .customerEmail("fulano@email.com").loanDate(LocalDate.now()).build();
+
+        LoanDTO dto = loanMapper.toDto(loan);
+
+        assertThat(dto.getId()).isEqualTo(10L);
+        assertThat(dto.getCustomer()).isEqualTo("Fulano");
+        assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getBook().getId()).isEqualTo(1L);
+        assertThat(dto.getBook().getTitle()).isEqualTo("As aventuras");
+    }
+
+    @Test
+    @DisplayName("Deve retornar nulo ao converter objetos nulos")
+    public void nullMappingTest() {
+        assertThat(bookMapper.toDto(null)).isNull();
+        assertThat(bookMapper.toEntity(null)).isNull();
+        assertThat(loanMapper.toDto(null)).isNull();
+    }
+}
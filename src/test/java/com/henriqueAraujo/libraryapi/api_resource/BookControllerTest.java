@@ -4,7 +4,9 @@ package com.henriqueAraujo.libraryapi.api_resource;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.cache.BookJsonCache;
 import com.henriqueAraujo.libraryapi.api.dto.BookDTO;
+import com.henriqueAraujo.libraryapi.api.pagination.Cursor;
 import com.henriqueAraujo.libraryapi.api.resource.BookController;
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
@@ -23,6 +25,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -31,9 +35,12 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -56,6 +63,9 @@ public class BookControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookJsonCache jsonCache;
+
 
 
     @Test
@@ -156,6 +166,42 @@ public class BookControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve escrever o json guardado no cache para a versao do livro, sem serializar")
+    public void getBookFromJsonCacheTest() throws Exception {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("001").version(3L).build();
+        byte[] json = "{\"id\":1,\"title\":\"Do cache\"}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer cached = ByteBuffer.allocateDirect(json.length);
+        cached.put(json).flip();
+        BDDMockito.given( service.getById(1L) ).willReturn(Optional.of(book));
+        BDDMockito.given( jsonCache.get(1L, 3L) ).willReturn(cached);
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, json.length))
+                .andExpect(jsonPath("title").value("Do cache"));
+
+        // written through a view, so the cached buffer can be served again
+        assertThat(cached.remaining()).isEqualTo(json.length);
+    }
+
+    @Test
+    @DisplayName("Deve serializar o livro e guarda-lo no cache quando a versao nao estiver no cache")
+    public void getBookJsonCacheMissTest() throws Exception {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("001").version(3L).build();
+        BDDMockito.given( service.getById(1L) ).willReturn(Optional.of(book));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("title").value("As aventuras"));
+
+        Mockito.verify(jsonCache).put(Mockito.eq(1L), Mockito.eq(3L), Mockito.any(BookDTO.class), Mockito.any(byte[].class));
+    }
+
     @Test
     @DisplayName("Deve retornar resource not found quando o livro procurado não existir")
     public void bookNotFoundTest() throws Exception {
@@ -273,6 +319,88 @@ public class BookControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar apenas livros disponiveis")
+    public void findAvailableBooksTest() throws Exception{
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+
+        BDDMockito.given( service.findByAvailability(Mockito.any(Book.class), Mockito.eq(true), Mockito.any(Pageable.class)) )
+                .willReturn( new PageImpl<Book>( Arrays.asList(book), PageRequest.of(0,100), 1 )   );
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(BOOK_API.concat("?available=true&page=0&size=100"))
+                        .accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("totalElements").value(1) );
+
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando o modo slice for solicitado")
+    public void findBooksSliceTest() throws Exception {
+
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+
+        BDDMockito.given( service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
+                .willReturn( new SliceImpl<Book>( Arrays.asList(book), PageRequest.of(0, 100), true ) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras&page=0&size=100"))
+                .header("X-Page-Mode", "slice")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("number").value(0) )
+                .andExpect( jsonPath("size").value(100) )
+                .andExpect( jsonPath("hasNext").value(true) )
+                .andExpect( jsonPath("totalElements").doesNotExist() )
+        ;
+
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros com paginacao por cursor")
+    public void findBooksAfterCursorTest() throws Exception {
+
+        Book book = Book.builder().id(7l).title("As aventuras").author("Artur").isbn("001").build();
+
+        BDDMockito.given( service.findAfter(Mockito.any(Book.class), Mockito.isNull(), Mockito.isNull(), Mockito.eq(1)) )
+                .willReturn( new SliceImpl<Book>( Arrays.asList(book), PageRequest.of(0, 1), true ) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras&after=&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("content[0].id").value(7l) )
+                .andExpect( jsonPath("size").value(1) )
+                .andExpect( jsonPath("next").value(Cursor.encode("As aventuras", 7l)) )
+                .andExpect( jsonPath("totalElements").doesNotExist() )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar bad request quando o cursor for invalido")
+    public void findBooksInvalidCursorTest() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?after=invalido&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform( request )
+                .andExpect( status().isBadRequest() );
+    }
+
     private BookDTO createNewBook() {
         return BookDTO.builder().author("Artur").title("As aventuras").isbn("001").build();
     }
@@ -0,0 +1,97 @@
+package com.henriqueAraujo.libraryapi.api_resource;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookImportReportDTO;
+import com.henriqueAraujo.libraryapi.api.resource.BookImportController;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.service.imports.BookImporter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = BookImportController.class)
+public class BookImportControllerTest {
+
+    static final String IMPORT_API = "/api/books/import";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookImporter importer;
+
+    @Test
+    @DisplayName("Deve importar livros de um CSV com cabecalho e campos entre aspas")
+    public void importCsvTest() throws Exception {
+        List<Book> rows = capture();
+        String csv = "isbn,title,author,category\n"
+                + "001,\"Aventuras, a volta\",Fulano,novel\n"
+                + "\n"
+                + "002,\"O \"\"livro\"\"\",Ciclano,\n";
+
+        mvc.perform(post(IMPORT_API).contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(2));
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).getTitle()).isEqualTo("Aventuras, a volta");
+        assertThat(rows.get(0).getCategory()).isEqualTo("novel");
+        assertThat(rows.get(1).getTitle()).isEqualTo("O \"livro\"");
+        assertThat(rows.get(1).getIsbn()).isEqualTo("002");
+        assertThat(rows.get(1).getCategory()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de NDJSON, um por linha")
+    public void importNdjsonTest() throws Exception {
+        List<Book> rows = capture();
+        String ndjson = "{\"id\":7,\"title\":\"Aventuras\",\"author\":\"Fulano\",\"isbn\":\"001\"}\n"
+                + "{\"title\":\"Outro\",\"author\":\"Ciclano\",\"isbn\":\"002\",\"category\":\"reference\"}\n";
+
+        mvc.perform(post(IMPORT_API).contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk());
+
+        assertThat(rows).extracting(Book::getIsbn).containsExactly("001", "002");
+        assertThat(rows.get(0).getId()).isNull();
+        assertThat(rows.get(1).getCategory()).isEqualTo("reference");
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 quando o CSV nao tiver as colunas obrigatorias")
+    public void importCsvWithoutHeaderTest() throws Exception {
+        mvc.perform(post(IMPORT_API).contentType("text/csv").content("001,Aventuras,Fulano\n"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(importer, Mockito.never()).importBooks(Mockito.any());
+    }
+
+    private List<Book> capture() {
+        List<Book> rows = new ArrayList<>();
+        BDDMockito.given(importer.importBooks(Mockito.any())).willAnswer(invocation -> {
+            Iterator<Book> books = invocation.getArgument(0);
+            books.forEachRemaining(rows::add);
+            return BookImportReportDTO.builder().read(rows.size()).imported(rows.size()).build();
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,128 @@
+package com.henriqueAraujo.libraryapi.api_resource;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETags from the version columns: conditional GETs of a book and of the loan
+ * listing, and optimistic concurrency on PUT through If-Match.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConditionalRequestTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve retornar 304 sem corpo quando o livro nao mudou")
+    public void bookNotModifiedTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+
+        mvc.perform(get("/api/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        mvc.perform(get("/api/books/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar com If-Match da versao atual e recusar com 412 uma versao antiga")
+    public void updateIfMatchTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        String url = "/api/books/" + book.getId();
+
+        mvc.perform(put(url).param("title", "Primeira").param("author", "Fulano").header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("title").value("Primeira"));
+
+        mvc.perform(put(url).param("title", "Segunda").param("author", "Fulano").header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("title").value("Primeira"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar a atualizacao de uma copia cuja versao ja mudou na base")
+    public void updateStaleCopyTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        String url = "/api/books/" + book.getId();
+        mvc.perform(get(url)).andExpect(status().isOk());
+
+        Book other = bookRepository.findById(book.getId()).get();
+        other.setTitle("Alterado por outro no");
+        bookRepository.save(other);
+
+        mvc.perform(put(url).param("title", "Segunda").param("author", "Fulano"))
+                .andExpect(status().isConflict());
+        assertThat(bookRepository.findById(book.getId()).get().getTitle()).isEqualTo("Alterado por outro no");
+    }
+
+    @Test
+    @DisplayName("Deve retornar 304 para a mesma pagina de emprestimos e 200 depois de uma devolucao")
+    public void loansNotModifiedTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        Loan loan = loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        String url = "/api/loans?customer=Fulano&page=0&size=10";
+
+        String etag = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        loan.setReturned(true);
+        loanRepository.save(loan);
+
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+}
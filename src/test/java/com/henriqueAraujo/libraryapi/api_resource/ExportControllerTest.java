@@ -0,0 +1,120 @@
+package com.henriqueAraujo.libraryapi.api_resource;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports through the real streaming queries. clear-every is 2 so the
+ * persistence context is cleared several times while rows are still being
+ * read.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.export.clear-every=2")
+@AutoConfigureMockMvc
+public class ExportControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 1; i <= 5; i++) {
+            Book book = bookRepository.save(Book.builder()
+                    .title(i == 1 ? "Aventuras, parte \"um\"" : "Livro " + i)
+                    .author("Fulano").isbn("isbn-" + i).build());
+            if (i <= 2) {
+                loanRepository.save(Loan.builder().book(book).customer("Cliente " + i)
+                        .loanDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(4)).build());
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve exportar todos os livros em NDJSON, um por linha")
+    public void exportBooksNdjsonTest() throws Exception {
+        String body = export("/api/export/books");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).contains("\"isbn\":\"isbn-1\"");
+        assertThat(lines[4]).contains("\"isbn\":\"isbn-5\"");
+    }
+
+    @Test
+    @DisplayName("Deve exportar livros filtrados em CSV com cabecalho e campos escapados")
+    public void exportBooksCsvTest() throws Exception {
+        String body = export("/api/export/books?format=csv&title=aventuras");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,title,author,isbn,category");
+        assertThat(lines[1]).endsWith(",\"Aventuras, parte \"\"um\"\"\",Fulano,isbn-1,");
+    }
+
+    @Test
+    @DisplayName("Deve exportar emprestimos com o livro em CSV")
+    public void exportLoansCsvTest() throws Exception {
+        String body = export("/api/export/loans?format=csv");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id,customer,email,isbn,loanDate,dueDate,status");
+        assertThat(lines[1]).contains(",Cliente 1,,isbn-1,").endsWith(",ACTIVE");
+        assertThat(lines[2]).contains(",Cliente 2,,isbn-2,");
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 para formato desconhecido")
+    public void exportUnknownFormatTest() throws Exception {
+        mvc.perform(get("/api/export/books?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Content-Type"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+}
@@ -2,9 +2,13 @@ package com.henriqueAraujo.libraryapi.api_resource;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.ReturnedLoanDTO;
+import com.henriqueAraujo.libraryapi.api.pagination.Cursor;
 import com.henriqueAraujo.libraryapi.api.resource.LoanController;
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
@@ -25,6 +29,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -34,10 +39,12 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
@@ -176,6 +183,78 @@ public class LoanControleTest {
         ).andExpect( status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve realizar emprestimos em lote informando o resultado de cada isbn")
+    public void createLoansBulkTest() throws Exception {
+        List<LoanDTO> dtos = Arrays.asList(
+                LoanDTO.builder().isbn("123").customer("Escola").email("escola@email.com").build(),
+                LoanDTO.builder().isbn("999").customer("Escola").email("escola@email.com").build(),
+                LoanDTO.builder().isbn("456").customer("Escola").email("escola@email.com").build());
+        BDDMockito.given(bookService.getBooksByIsbns(Mockito.anyCollection()))
+                .willReturn(Arrays.asList(
+                        Book.builder().id(1L).isbn("123").build(),
+                        Book.builder().id(2L).isbn("456").build()));
+        BDDMockito.given(loanService.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(
+                        LoanCheckoutResultDTO.builder().isbn("123").id(10L).result(LoanCheckoutResultDTO.Result.LOANED).build(),
+                        LoanCheckoutResultDTO.builder().isbn("456").result(LoanCheckoutResultDTO.Result.ALREADY_LOANED).build()));
+
+        mvc.perform(
+                post(LOAN_API.concat("/bulk"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dtos))
+        )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("$", Matchers.hasSize(3)))
+                .andExpect( jsonPath("[0].id").value(10))
+                .andExpect( jsonPath("[1].isbn").value("999"))
+                .andExpect( jsonPath("[1].result").value("BOOK_NOT_FOUND"))
+                .andExpect( jsonPath("[2].result").value("ALREADY_LOANED"));
+
+        Mockito.verify(bookService, Mockito.times(1)).getBooksByIsbns(Mockito.anyCollection());
+        Mockito.verify(bookService, Mockito.never()).getBookByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve devolver varios livros de uma vez com o resultado de cada item")
+    public void returnBooksBatchTest() throws Exception {
+        LoanReturnBatchDTO dto = LoanReturnBatchDTO.builder()
+                .ids(Arrays.asList(1L, 2L))
+                .isbns(Arrays.asList("123"))
+                .build();
+        BDDMockito.given(loanService.returnLoans(Mockito.any(LoanReturnBatchDTO.class)))
+                .willReturn(Arrays.asList(
+                        LoanReturnResultDTO.builder().id(1L).result(LoanReturnResultDTO.Result.RETURNED).build(),
+                        LoanReturnResultDTO.builder().result(LoanReturnResultDTO.Result.NOT_FOUND).build(),
+                        LoanReturnResultDTO.builder().id(3L).isbn("123").result(LoanReturnResultDTO.Result.ALREADY_RETURNED).build()));
+
+        mvc.perform(
+                post(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto))
+        )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("$", Matchers.hasSize(3)))
+                .andExpect( jsonPath("[0].result").value("RETURNED"))
+                .andExpect( jsonPath("[1].result").value("NOT_FOUND"))
+                .andExpect( jsonPath("[2].isbn").value("123"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 para devolucao em lote vazia")
+    public void returnEmptyBatchTest() throws Exception {
+        mvc.perform(
+                post(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+        ).andExpect( status().isBadRequest() );
+
+        Mockito.verify(loanService, Mockito.never()).returnLoans(Mockito.any());
+    }
+
     @Test
     @DisplayName("Deve filtrar emprestimos")
     public void findLoansTest() throws Exception {
@@ -207,4 +286,47 @@ public class LoanControleTest {
 
     }
 
+    @Test
+    @DisplayName("Deve filtrar emprestimos sem contar o total no modo slice")
+    public void findLoansSliceTest() throws Exception {
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(1L);
+
+        BDDMockito.given( loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn( new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&page=0&size=10"))
+                        .header("X-Page-Mode", "slice")
+                        .accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk())
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("size").value(10))
+                .andExpect( jsonPath("hasNext").value(false))
+                .andExpect( jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar emprestimos a partir de um cursor")
+    public void findLoansAfterCursorTest() throws Exception {
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(2L);
+        loan.getBook().setIsbn("321");
+        LocalDate afterDate = LocalDate.of(2022, 7, 1);
+
+        BDDMockito.given( loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(afterDate), Mockito.eq(1L), Mockito.eq(10)))
+                .willReturn( new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        String queryString = String.format("?customer=%s&after=%s&size=10",
+                loan.getCustomer(), Cursor.encode(afterDate.toString(), 1L));
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(LOAN_API.concat(queryString)).accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk())
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("content[0].id").value(2))
+                .andExpect( jsonPath("content[0].book.isbn").value("321"))
+                .andExpect( jsonPath("next").doesNotExist());
+    }
+
 }
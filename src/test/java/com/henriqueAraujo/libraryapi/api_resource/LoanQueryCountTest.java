@@ -0,0 +1,144 @@
+package com.henriqueAraujo.libraryapi.api_resource;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henriqueAraujo.libraryapi.api.dto.LoanDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import com.henriqueAraujo.libraryapi.support.SqlStatementRecorder;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.henriqueAraujo.libraryapi.support.QueryCount.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the loan listings against N+1 selects: the number of statements per
+ * call must not depend on the number of loans in the page.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = SqlStatementRecorder.ENABLE)
+@AutoConfigureMockMvc
+public class LoanQueryCountTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("GET /api/loans deve executar apenas a consulta da pagina e a contagem")
+    public void findLoansStatementCountTest() throws Throwable {
+        for (int i = 0; i < 20; i++) {
+            Book book = bookRepository.save(Book.builder().title("Livro " + i).author("Fulano").isbn("isbn-" + i).build());
+            loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        }
+
+        assertStatements(2, () ->
+                mvc.perform(MockMvcRequestBuilders.get("/api/loans?customer=Fulano&page=0&size=10")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("content", Matchers.hasSize(10)))
+                        .andExpect(jsonPath("content[9].book.title").exists()));
+    }
+
+    @Test
+    @DisplayName("GET /api/books/{id}/loans deve executar apenas a busca do livro e a dos emprestimos")
+    public void loansByBookStatementCountTest() throws Throwable {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        for (int i = 0; i < 5; i++) {
+            loanRepository.save(Loan.builder().book(book).customer("Fulano " + i)
+                    .loanDate(LocalDate.now()).returned(true).build());
+        }
+
+        assertStatements(2, () ->
+                mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId() + "/loans?page=0&size=10")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("content", Matchers.hasSize(5)))
+                        .andExpect(jsonPath("content[4].book.isbn").value("isbn-1")));
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/returns deve devolver 500 emprestimos com uma consulta e uma atualizacao")
+    public void returnBatchStatementCountTest() throws Throwable {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Book book = bookRepository.save(Book.builder().title("Livro " + i).author("Fulano").isbn("isbn-" + i).build());
+            ids.add(loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build()).getId());
+        }
+        String json = new ObjectMapper().writeValueAsString(LoanReturnBatchDTO.builder().ids(ids).build());
+
+        assertStatements(2, () ->
+                mvc.perform(MockMvcRequestBuilders.post("/api/loans/returns")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(json))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$", Matchers.hasSize(500)))
+                        .andExpect(jsonPath("[499].result").value("RETURNED")));
+
+        assertThat(loanRepository.findAll()).allMatch(Loan::getReturned);
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/bulk deve resolver os isbns em uma consulta e inserir em lotes")
+    public void bulkCheckoutStatementCountTest() throws Throwable {
+        List<LoanDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            bookRepository.save(Book.builder().title("Livro " + i).author("Fulano").isbn("isbn-" + i).build());
+            dtos.add(LoanDTO.builder().isbn("isbn-" + i).customer("Escola").email("escola@email.com").build());
+        }
+        dtos.add(LoanDTO.builder().isbn("isbn-inexistente").customer("Escola").email("escola@email.com").build());
+        String json = new ObjectMapper().writeValueAsString(dtos);
+
+        SqlStatementRecorder.clear();
+        mvc.perform(MockMvcRequestBuilders.post("/api/loans/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(501)))
+                .andExpect(jsonPath("[499].result").value("LOANED"))
+                .andExpect(jsonPath("[500].result").value("BOOK_NOT_FOUND"));
+
+        List<String> statements = SqlStatementRecorder.statements();
+        assertThat(statements.stream().filter(sql -> sql.startsWith("select") && !sql.contains("next value")).count())
+                .as("selects: %s", statements).isEqualTo(2);
+        assertThat(statements.stream().filter(sql -> sql.startsWith("insert")).count())
+                .as("insert batches").isLessThanOrEqualTo(10);
+        assertThat(statements).as("SQL statements issued").hasSizeLessThanOrEqualTo(25);
+        assertThat(loanRepository.count()).isEqualTo(500);
+    }
+}
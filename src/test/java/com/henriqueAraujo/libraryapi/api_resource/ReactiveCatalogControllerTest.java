@@ -0,0 +1,152 @@
+package com.henriqueAraujo.libraryapi.api_resource;
+
+import com.henriqueAraujo.libraryapi.api.resource.ReactiveCatalogController;
+import com.henriqueAraujo.libraryapi.config.ReactiveConfig;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.service.BookService;
+import com.henriqueAraujo.libraryapi.service.LoanService;
+import com.henriqueAraujo.libraryapi.service.LoanServiceTest;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReactiveCatalogController.class, properties = "application.reactive.timeout-ms=500")
+@Import(ReactiveConfig.class)
+@AutoConfigureMockMvc
+public class ReactiveCatalogControllerTest {
+
+    static String REACTIVE_API = "/api/reactive";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Deve filtrar livros sem prender a thread do servlet")
+    public void findBooksTest() throws Exception {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(REACTIVE_API.concat("/books?title=aventuras&page=0&size=100"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].title").value("As aventuras"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve transmitir todos os livros em NDJSON percorrendo as paginas por cursor")
+    public void streamBooksTest() throws Exception {
+        Book first = Book.builder().id(1L).title("A").isbn("001").build();
+        Book second = Book.builder().id(2L).title("B").isbn("002").build();
+        BDDMockito.given(bookService.findAfter(Mockito.any(Book.class), Mockito.isNull(), Mockito.isNull(), Mockito.eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(first), PageRequest.of(0, 1), true));
+        BDDMockito.given(bookService.findAfter(Mockito.any(Book.class), Mockito.eq("A"), Mockito.eq(1L), Mockito.eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(second), PageRequest.of(0, 1), false));
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(REACTIVE_API.concat("/books?chunk=1"))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"isbn\":\"001\"");
+        assertThat(lines[1]).contains("\"isbn\":\"002\"");
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 quando o livro nao existir")
+    public void bookNotFoundTest() throws Exception {
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(REACTIVE_API.concat("/books/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 503 quando a leitura passar do tempo limite")
+    public void readTimeoutTest() throws Exception {
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willAnswer(invocation -> {
+            Thread.sleep(5000);
+            return Optional.empty();
+        });
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(REACTIVE_API.concat("/books/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("Deve listar os emprestimos de um livro")
+    public void loansByBookTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("321").build();
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(1L);
+        loan.setBook(book);
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getLoansByBook(Mockito.eq(book), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Collections.singletonList(loan), PageRequest.of(0, 10), 1));
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(REACTIVE_API.concat("/books/1/loans?page=0&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value("321"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkheadDataSourceTest {
+
+    DataSource target;
+    BulkheadDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        target = Mockito.mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+        dataSource = new BulkheadDataSource(target, 1, 50);
+    }
+
+    @Test
+    @DisplayName("Deve recusar conexao quando nao houver permissao disponivel")
+    public void rejectWhenFullTest() throws SQLException {
+        Connection connection = dataSource.getConnection();
+
+        Throwable exception = catchThrowable(() -> dataSource.getConnection());
+
+        assertThat(exception).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(dataSource.availablePermits()).isZero();
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Deve devolver a permissao uma unica vez ao fechar a conexao")
+    public void releaseOnCloseTest() throws SQLException {
+        Connection connection = dataSource.getConnection();
+
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        Connection next = dataSource.getConnection();
+        assertThat(next).isNotNull();
+        assertThat(dataSource.availablePermits()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve devolver a permissao quando o pool falhar ao abrir a conexao")
+    public void releaseOnFailureTest() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool fechado"));
+
+        Throwable exception = catchThrowable(() -> dataSource.getConnection());
+
+        assertThat(exception).isInstanceOf(SQLException.class).hasMessage("pool fechado");
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        verify(target).getConnection();
+    }
+}
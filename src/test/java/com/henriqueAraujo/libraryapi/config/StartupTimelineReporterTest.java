@@ -0,0 +1,35 @@
+package com.henriqueAraujo.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StartupTimelineReporterTest {
+
+    @Test
+    @DisplayName("Deve relatar o tempo por fase e os beans mais lentos da inicializacao")
+    public void reportTest() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        startup.startRecording();
+
+        StartupStep refresh = startup.start("spring.context.refresh");
+        startup.start("spring.beans.instantiate").tag("beanName", "entityManagerFactory").end();
+        startup.start("spring.beans.instantiate").tag("beanName", "bookController").end();
+        refresh.end();
+
+        StartupTimelineReporter reporter = new StartupTimelineReporter();
+        ReflectionTestUtils.setField(reporter, "slowestBeans", 1);
+
+        String report = reporter.report(startup.getBufferedTimeline(), 1234);
+
+        assertThat(report).contains("ready after 1234 ms");
+        assertThat(report).contains("3 steps recorded");
+        assertThat(report).contains("spring.context.refresh");
+        assertThat(report.split("\n")).filteredOn(line -> line.contains("ms  ") && !line.contains("spring."))
+                .hasSize(1);
+    }
+}
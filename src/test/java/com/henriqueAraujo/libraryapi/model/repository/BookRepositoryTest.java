@@ -7,9 +7,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -101,4 +103,26 @@ public class BookRepositoryTest {
 
 
     }
+
+    @Test
+    @DisplayName("Deve buscar a proxima pagina de livros ordenada por titulo a partir do cursor")
+    public void findByFilterAfterTest() {
+        Book first = Book.builder().title("A").author("Fulano").isbn("1").build();
+        Book second = Book.builder().title("B").author("Fulano").isbn("2").build();
+        Book third = Book.builder().title("B").author("Fulano").isbn("3").build();
+        Book other = Book.builder().title("C").author("Ciclano").isbn("4").build();
+        entityManager.persist(third);
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(other);
+
+        List<Book> firstPage = repository.findByFilterAfter(null, "fulano", null, "", 0L, PageRequest.of(0, 2));
+        Book last = firstPage.get(firstPage.size() - 1);
+        List<Book> secondPage = repository.findByFilterAfter(null, "fulano", null, last.getTitle(), last.getId(), PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(Book::getTitle).containsExactly("A", "B");
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).getTitle()).isEqualTo("B");
+        assertThat(secondPage.get(0).getId()).isGreaterThan(last.getId());
+    }
 }
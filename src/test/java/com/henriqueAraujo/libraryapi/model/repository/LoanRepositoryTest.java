@@ -12,10 +12,12 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.henriqueAraujo.libraryapi.model.repository.BookRepositoryTest.createNewBook;
@@ -66,33 +68,115 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Deve obter emprestimos cuja data emprestimo for menor ou igual a tres dias atras e nao retornados")
-    public void findByLoanDateLessThanAndNotReturned() {
+    @DisplayName("Deve devolver cada emprestimo uma unica vez e informar os que ja estavam devolvidos")
+    public void markReturnedTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+
+        boolean[] first = repository.markReturned(Arrays.asList(loan.getId(), loan.getId()));
+        boolean[] second = repository.markReturned(Arrays.asList(loan.getId()));
+
+        assertThat(first).containsExactly(true, false);
+        assertThat(second).containsExactly(false);
+        Loan returned = repository.findById(loan.getId()).get();
+        assertThat(returned.getReturned()).isTrue();
+        assertThat(returned.getActiveBookId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve obter emprestimos ativos cuja data de devolucao ja chegou")
+    public void findOverdueTest() {
       Loan loan = createAndPersistLoan(LocalDate.now().minusDays(5));
 
-      List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+      List<Loan> result = repository.findOverdue(LocalDate.now());
 
       assertThat(result).hasSize(1).contains(loan);
     }
 
+    @Test
+    @DisplayName("Nao deve obter emprestimos devolvidos ou com prazo maior ainda nao vencido")
+    public void notFindReturnedOrLongerLoansTest() {
+        Loan returned = createAndPersistLoan(LocalDate.now().minusDays(5), "123");
+        returned.setReturned(true);
+        Loan longer = createAndPersistLoan(LocalDate.now().minusDays(5), "456");
+        longer.setDueDate(LocalDate.now().plusDays(9));
+        entityManager.flush();
+
+        List<Loan> result = repository.findOverdue(LocalDate.now());
+
+        assertThat(result).isEmpty();
+    }
+
     @Test
     @DisplayName("Deve retornar vazio quando não houver emprestimo atrasados.")
-    public void notFindByLoanDateLessThanAndNotReturned() {
+    public void notFindOverdueTest() {
         Loan loan = createAndPersistLoan(LocalDate.now());
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<Loan> result = repository.findOverdue(LocalDate.now());
 
         assertThat(result).isEmpty();
     }
 
 
 
+    @Test
+    @DisplayName("Deve buscar uma fatia de emprestimos pelo isbn ou customer sem contar o total")
+    public void findSliceByBookIsbnOrCustomerTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now(), "123");
+        createAndPersistLoan(LocalDate.now(), "456");
+
+        Slice<Loan> result = repository.findSliceByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent().get(0).getCustomer()).isEqualTo(loan.getCustomer());
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos depois do cursor ordenados por data e id")
+    public void findByBookIsbnOrCustomerAfterTest() {
+        Loan older = createAndPersistLoan(LocalDate.now().minusDays(2), "123");
+        Loan newer = createAndPersistLoan(LocalDate.now(), "456");
+
+        List<Loan> firstPage = repository.findByBookIsbnOrCustomerAfter(
+                null, "Fulano", LocalDate.of(1, 1, 1), 0L, PageRequest.of(0, 1));
+        List<Loan> secondPage = repository.findByBookIsbnOrCustomerAfter(
+                null, "Fulano", older.getLoanDate(), older.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstPage).containsExactly(older);
+        assertThat(secondPage).containsExactly(newer);
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos atrasados depois do cursor ordenados por email e id")
+    public void findLateLoansAfterTest() {
+        Loan second = createAndPersistLoan(LocalDate.now().minusDays(5), "123", "b@email.com");
+        Loan first = createAndPersistLoan(LocalDate.now().minusDays(5), "456", "a@email.com");
+        createAndPersistLoan(LocalDate.now(), "789", "a@email.com");
+
+        List<Loan> firstChunk = repository.findLateLoansAfter(
+                LocalDate.now(), "", 0L, PageRequest.of(0, 1));
+        List<Loan> secondChunk = repository.findLateLoansAfter(
+                LocalDate.now(), first.getCustomerEmail(), first.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstChunk).containsExactly(first);
+        assertThat(secondChunk).containsExactly(second);
+    }
+
     private Loan createAndPersistLoan(LocalDate loanDate) {
+        return createAndPersistLoan(loanDate, "123");
+    }
+
+    private Loan createAndPersistLoan(LocalDate loanDate, String isbn) {
+        return createAndPersistLoan(loanDate, isbn, null);
+    }
+
+    private Loan createAndPersistLoan(LocalDate loanDate, String isbn, String email) {
         //cenario
-        Book book = createNewBook("123");
+        Book book = createNewBook(isbn);
         entityManager.persist(book);
 
-        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+        Loan loan = Loan.builder().book(book).customer("Fulano").customerEmail(email)
+                .loanDate(loanDate).dueDate(loanDate.plusDays(4)).build();
         entityManager.persist(loan);
 
         return loan;
@@ -0,0 +1,148 @@
+package com.henriqueAraujo.libraryapi.model.repository;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.support.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.henriqueAraujo.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs H2 EXPLAIN on the SQL Hibernate generates for the hot repository
+ * queries and fails when any of them falls back to a full table scan, or
+ * when a keyset seek does not go through its (sort key, id) index.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = SqlStatementRecorder.ENABLE)
+public class QueryPlanTest {
+
+    private static final int ROWS = 200;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < ROWS; i++) {
+            Book saved = entityManager.persist(createNewBook("isbn-" + i));
+            entityManager.persist(Loan.builder().book(saved).customer("Fulano")
+                    .loanDate(LocalDate.now().minusDays(i % 10)).build());
+            if (i == 0) {
+                book = saved;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("existsByIsbn deve usar indice")
+    public void existsByIsbnPlanTest() {
+        assertIndexed(() -> bookRepository.existsByIsbn("isbn-1"));
+    }
+
+    @Test
+    @DisplayName("findByIsbn deve usar indice")
+    public void findByIsbnPlanTest() {
+        assertIndexed(() -> bookRepository.findByIsbn("isbn-1"));
+    }
+
+    @Test
+    @DisplayName("existsByBookAndNotReturned deve usar indice")
+    public void existsByBookAndNotReturnedPlanTest() {
+        assertIndexed(() -> loanRepository.existsByBookAndNotReturned(book));
+    }
+
+    @Test
+    @DisplayName("findByBook deve usar indice na consulta e na contagem")
+    public void findByBookPlanTest() {
+        assertIndexed(() -> loanRepository.findByBook(book, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @DisplayName("findOverdue deve usar indice")
+    public void findOverduePlanTest() {
+        assertIndexed(() -> loanRepository.findOverdue(LocalDate.now().minusDays(4)));
+    }
+
+    @Test
+    @DisplayName("findByFilterAfter deve buscar a partir do cursor pelo indice de titulo e id")
+    public void findByFilterAfterPlanTest() {
+        assertUsesIndex("idx_book_title_id",
+                () -> bookRepository.findByFilterAfter(null, null, null, "Aventuras", book.getId(), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @DisplayName("findByBookIsbnOrCustomerAfter deve buscar a partir do cursor pelo indice de data e id")
+    public void findByBookIsbnOrCustomerAfterPlanTest() {
+        assertUsesIndex("idx_loan_date_id",
+                () -> loanRepository.findByBookIsbnOrCustomerAfter(
+                        null, "Fulano", LocalDate.now().minusDays(5), 0L, PageRequest.of(0, 10)));
+    }
+
+    private void assertUsesIndex(String index, Runnable query) {
+        SqlStatementRecorder.clear();
+        query.run();
+
+        List<String> statements = SqlStatementRecorder.statements();
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql).toLowerCase()).as(sql).contains(index);
+        }
+    }
+
+    private void assertIndexed(Runnable query) {
+        SqlStatementRecorder.clear();
+        query.run();
+
+        List<String> statements = SqlStatementRecorder.statements();
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql)).as(sql).doesNotContain("tableScan");
+        }
+    }
+
+    private String explain(String sql) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+             ResultSet plan = statement.executeQuery()) {
+            plan.next();
+            return plan.getString(1);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not explain " + sql, ex);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
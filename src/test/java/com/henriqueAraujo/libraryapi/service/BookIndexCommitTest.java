@@ -0,0 +1,101 @@
+package com.henriqueAraujo.libraryapi.service;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import com.henriqueAraujo.libraryapi.service.index.IsbnIndex;
+import com.henriqueAraujo.libraryapi.service.index.Isbns;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Deletes and updates that the database rejects at commit must leave the
+ * in-memory indexes as they were.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookIndexCommitTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @Autowired
+    IsbnIndex isbnIndex;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        // IndexLoader fills the indexes off the startup thread
+        for (int i = 0; i < 100 && !(searchIndex.isReady() && isbnIndex.isReady()); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(searchIndex.isReady()).isTrue();
+        assertThat(isbnIndex.isReady()).isTrue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.findAll().forEach(book -> isbnIndex.remove(Isbns.toKey(book.getIsbn()), book.getId()));
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve continuar achando pelo titulo o livro que nao pode ser excluido por ter emprestimo")
+    public void deleteBookWithLoanKeepsSearchIndexTest() {
+        Book book = bookService.save(Book.builder().title("Aventuras no lago").author("Fulano").isbn("9780306406157").build());
+        loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        Throwable exception = catchThrowable(() -> bookService.delete(bookService.getById(book.getId()).get()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(bookRepository.existsById(book.getId())).isTrue();
+        assertThat(searchIndex.search("lago", null)).containsExactly(book.getId());
+        assertThat(isbnIndex.get(Isbns.toKey("9780306406157"))).isEqualTo(book.getId());
+    }
+
+    @Test
+    @DisplayName("Nao deve indexar o titulo de uma atualizacao recusada por versao antiga")
+    public void rejectedUpdateKeepsSearchIndexTest() {
+        Book book = bookService.save(Book.builder().title("Aventuras no lago").author("Fulano").isbn("9780306406157").build());
+        Book stale = bookService.getById(book.getId()).get();
+        Book current = bookService.getById(book.getId()).get();
+        current.setAuthor("Ciclano");
+        bookService.update(current);
+
+        stale.setTitle("Rejeitado");
+        stale.setIsbn("080442957X");
+        Throwable exception = catchThrowable(() -> bookService.update(stale));
+
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(searchIndex.search("Rejeitado", null)).isEmpty();
+        assertThat(searchIndex.search("lago", null)).containsExactly(book.getId());
+        assertThat(isbnIndex.get(Isbns.toKey("080442957X"))).isEqualTo(IsbnIndex.MISSING);
+        assertThat(isbnIndex.get(Isbns.toKey("9780306406157"))).isEqualTo(book.getId());
+    }
+}
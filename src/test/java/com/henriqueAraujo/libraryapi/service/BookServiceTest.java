@@ -2,8 +2,17 @@ package com.henriqueAraujo.libraryapi.service;
 
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.BookChange;
+import com.henriqueAraujo.libraryapi.model.repository.BookChangeRepository;
 import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.cache.BookChangedEvent;
+import com.henriqueAraujo.libraryapi.service.cache.BookNearCache;
 import com.henriqueAraujo.libraryapi.service.impl.BookServiceImpl;
+import com.henriqueAraujo.libraryapi.service.index.AvailabilityIndex;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import com.henriqueAraujo.libraryapi.service.index.IsbnIndex;
+import com.henriqueAraujo.libraryapi.service.index.Isbns;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -32,12 +41,23 @@ import static org.mockito.Mockito.verify;
 public class BookServiceTest {
 
     BookService service;
+    BookSearchIndex searchIndex;
+    AvailabilityIndex availabilityIndex;
+    IsbnIndex isbnIndex;
+    BookNearCache nearCache;
     @MockBean
     BookRepository repository;
+    @MockBean
+    BookChangeRepository changeRepository;
 
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.searchIndex = new BookSearchIndex();
+        this.availabilityIndex = new AvailabilityIndex();
+        this.isbnIndex = new IsbnIndex();
+        this.nearCache = new BookNearCache(new SimpleMeterRegistry(), 100, 60000);
+        this.service = new BookServiceImpl(repository, searchIndex, availabilityIndex, isbnIndex, nearCache, changeRepository,
+                event -> nearCache.onBookChanged((BookChangedEvent) event));
     }
 
     @Test
@@ -89,6 +109,58 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve verificar o isbn pelo indice, sem consultar a base, quando ele estiver carregado")
+    public void saveWithIsbnIndexTest() {
+        Book saved = Book.builder().id(1L).isbn("978-0-306-40615-7").author("Fulano").title("As aventuras").build();
+        Mockito.when( repository.save(Mockito.any(Book.class)) ).thenReturn(saved);
+        Mockito.when( repository.findById(1L) ).thenReturn(Optional.of(saved));
+        isbnIndex.markReady();
+
+        service.save(Book.builder().isbn("978-0-306-40615-7").author("Fulano").title("As aventuras").build());
+        Throwable exception = Assertions.catchThrowable(() ->
+                service.save(Book.builder().isbn("0306406152").author("Fulano").title("As aventuras").build()));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        assertThat( service.getBookByIsbn("9780306406157").get().getId() ).isEqualTo(1L);
+        assertThat( isbnIndex.get(Isbns.toKey("0-306-40615-2")) ).isEqualTo(1L);
+        verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+        verify(repository, Mockito.never()).findByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve buscar na base um isbn que o indice nao conhece ou que nao e valido")
+    public void getBookByIsbnFallbackTest() {
+        Book book = Book.builder().id(2L).isbn("9780804429573").title("Outro").build();
+        Mockito.when( repository.findByIsbn("9780804429573") ).thenReturn(Optional.of(book));
+        Mockito.when( repository.findByIsbn("isbn-1") ).thenReturn(Optional.empty());
+        isbnIndex.markReady();
+
+        assertThat( service.getBookByIsbn("9780804429573") ).contains(book);
+        assertThat( service.getBookByIsbn("isbn-1") ).isEmpty();
+        assertThat( isbnIndex.get(Isbns.toKey("080442957X")) ).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Deve tomar a chave de isbn deixada por outro livro, mas nao a de um livro com o mesmo isbn")
+    public void updateIsbnIndexCollisionTest() {
+        Book stale = Book.builder().id(5L).isbn("9780804429573").title("Outro").build();
+        Book sameIsbn = Book.builder().id(6L).isbn("0-306-40615-2").title("Repetido").build();
+        Book book = Book.builder().id(1L).isbn("978-0-306-40615-7").title("As aventuras").build();
+        Mockito.when( repository.findById(5L) ).thenReturn(Optional.of(stale));
+        Mockito.when( repository.findById(6L) ).thenReturn(Optional.of(sameIsbn));
+        Mockito.when( repository.save(Mockito.any(Book.class)) ).thenAnswer(invocation -> invocation.getArgument(0));
+
+        isbnIndex.put(Isbns.toKey("9780306406157"), 5L);
+        service.update(book);
+        assertThat( isbnIndex.get(Isbns.toKey("9780306406157")) ).isEqualTo(1L);
+
+        isbnIndex.remove(Isbns.toKey("9780306406157"), 1L);
+        isbnIndex.put(Isbns.toKey("9780306406157"), 6L);
+        service.update(book);
+        assertThat( isbnIndex.get(Isbns.toKey("9780306406157")) ).isEqualTo(6L);
+    }
+
     @Test
     @DisplayName("Deve obter um livro por id")
     public void getByIdTest() {
@@ -111,6 +183,29 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve obter um livro do cache e busca-lo de novo depois de atualizado")
+    public void getByIdFromNearCacheTest() {
+        //Cenario
+        Long id = 1L;
+        Book book = createValidBook();
+        book.setId(id);
+        Mockito.when(repository.findById(id)).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //Execução
+        service.getById(id);
+        Book cached = service.getById(id).get();
+        cached.setTitle("Alterado sem salvar");
+        assertThat( service.getById(id).get().getTitle() ).isEqualTo("As aventuras");
+        service.update(cached);
+        service.getById(id);
+
+        //verificação
+        verify(repository, times(2)).findById(id);
+        verify(changeRepository, times(1)).save(Mockito.any(BookChange.class));
+    }
+
     @Test
     @DisplayName("Deve retornar vazio ao obter um livro por id quando ele não existe na base")
     public void bookNotFoundByIdTest() {
@@ -216,6 +311,96 @@ public class BookServiceTest {
         assertThat( result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros pelo indice de busca quando ele estiver carregado")
+    public void findBookWithSearchIndexTest() {
+        //cenário
+        Book first = Book.builder().id(1L).title("As aventuras de Artur").author("Fulano").isbn("1").build();
+        Book second = Book.builder().id(2L).title("Aventuras").author("Fulano").isbn("2").build();
+        Book other = Book.builder().id(3L).title("Outro livro").author("Fulano").isbn("3").build();
+        searchIndex.index(first);
+        searchIndex.index(second);
+        searchIndex.index(other);
+        searchIndex.markReady();
+
+        Mockito.when( repository.findAllById(Arrays.asList(1L, 2L)) ).thenReturn(Arrays.asList(second, first));
+
+        //execução
+        Page<Book> result = service.find(Book.builder().title("aventuras").build(), PageRequest.of(0, 10));
+
+        //verificações
+        assertThat( result.getTotalElements()).isEqualTo(2);
+        assertThat( result.getContent()).isEqualTo(Arrays.asList(first, second));
+        verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve manter o total da busca e tirar o livro deletado do indice para a proxima busca")
+    public void findBookWithSearchIndexSkipsDeletedBooksTest() {
+        Book first = Book.builder().id(1L).title("Aventuras").author("Fulano").isbn("1").build();
+        Book deleted = Book.builder().id(2L).title("Aventuras").author("Fulano").isbn("2").build();
+        Book third = Book.builder().id(3L).title("Aventuras").author("Fulano").isbn("3").build();
+        searchIndex.index(first);
+        searchIndex.index(deleted);
+        searchIndex.index(third);
+        searchIndex.markReady();
+
+        Mockito.when( repository.findAllById(Arrays.asList(1L, 2L)) ).thenReturn(Arrays.asList(first));
+        Mockito.when( repository.findAllById(Arrays.asList(1L, 3L)) ).thenReturn(Arrays.asList(first, third));
+
+        Page<Book> stale = service.find(Book.builder().title("aventuras").build(), PageRequest.of(0, 2));
+        Page<Book> next = service.find(Book.builder().title("aventuras").build(), PageRequest.of(0, 2));
+
+        assertThat( stale.getTotalElements()).isEqualTo(3);
+        assertThat( stale.getContent()).containsExactly(first);
+        assertThat( next.getTotalElements()).isEqualTo(2);
+        assertThat( next.getContent()).containsExactly(first, third);
+        assertThat( searchIndex.search("aventuras", null) ).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve manter o indice de busca ao salvar e deletar um livro")
+    public void keepSearchIndexInSyncTest() {
+        Book book = createValidBook();
+        Book savedBook = createValidBook();
+        savedBook.setId(1L);
+        Mockito.when( repository.save(book) ).thenReturn(savedBook);
+
+        service.save(book);
+        assertThat( searchIndex.search("aventuras", null) ).isEqualTo(Arrays.asList(1L));
+
+        service.delete(savedBook);
+        assertThat( searchIndex.search("aventuras", null) ).isEqualTo(Arrays.asList());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros disponiveis pelo indice de disponibilidade sem consultar emprestimos")
+    public void findAvailableBooksWithIndexTest() {
+        Book free = Book.builder().id(1L).title("Livro livre").isbn("1").build();
+        availabilityIndex.markLoaned(2L);
+        availabilityIndex.markReady();
+        Mockito.when( repository.findIdsByFilter(null, null, null) ).thenReturn(Arrays.asList(1L, 2L, 3L));
+        Mockito.when( repository.findAllById(Arrays.asList(1L)) ).thenReturn(Arrays.asList(free));
+
+        Page<Book> result = service.findByAvailability(new Book(), true, PageRequest.of(0, 1));
+
+        assertThat( result.getTotalElements()).isEqualTo(2);
+        assertThat( result.getContent()).isEqualTo(Arrays.asList(free));
+        verify(repository, Mockito.never()).findAvailableByFilter(
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco para filtrar disponibilidade enquanto o indice carrega")
+    public void findAvailableBooksBeforeIndexIsReadyTest() {
+        Page<Book> page = new PageImpl<>(Arrays.asList(createValidBook()), PageRequest.of(0, 10), 1);
+        Mockito.when( repository.findLoanedByFilter(null, null, null, PageRequest.of(0, 10)) ).thenReturn(page);
+
+        Page<Book> result = service.findByAvailability(new Book(), false, PageRequest.of(0, 10));
+
+        assertThat( result ).isSameAs(page);
+    }
+
     @Test
     @DisplayName("deve obter um livro pelo isbn")
     public void getBookByIsbnTest() {
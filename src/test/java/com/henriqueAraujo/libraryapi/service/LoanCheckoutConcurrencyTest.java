@@ -0,0 +1,194 @@
+package com.henriqueAraujo.libraryapi.service;
+
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
+import com.henriqueAraujo.libraryapi.exception.BusinessException;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Hammers POST-like checkouts, single and bulk, from many threads at once
+ * and checks that a book never ends up with two active loans.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class LoanCheckoutConcurrencyTest {
+
+    private static final int CLIENTS = 32;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve permitir apenas um emprestimo ativo quando varios clientes pegam o mesmo livro")
+    public void concurrentCheckoutSameBookTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+
+        List<Throwable> results = checkoutConcurrently(i -> book);
+
+        assertThat(results).filteredOn(result -> result == null).hasSize(1);
+        assertThat(results).filteredOn(result -> result != null)
+                .hasSize(CLIENTS - 1)
+                .allMatch(result -> result instanceof BusinessException && "Book already loaned".equals(result.getMessage()));
+        assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar livros diferentes em paralelo")
+    public void concurrentCheckoutDifferentBooksTest() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            books.add(bookRepository.save(Book.builder().title("Livro " + i).author("Fulano").isbn("isbn-" + i).build()));
+        }
+
+        List<Throwable> results = checkoutConcurrently(books::get);
+
+        assertThat(results).containsOnlyNulls();
+        assertThat(loanRepository.count()).isEqualTo(CLIENTS);
+    }
+
+    @Test
+    @DisplayName("O banco deve rejeitar um segundo emprestimo ativo mesmo sem a trava do servico")
+    public void activeLoanConstraintTest() {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        loanRepository.save(newLoan(book, "Fulano"));
+
+        Throwable exception = catchThrowable(() -> loanRepository.save(newLoan(book, "Ciclano")));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve permitir novo emprestimo depois que o livro for devolvido")
+    public void checkoutAfterReturnTest() {
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-1").build());
+        Loan loan = loanService.save(newLoan(book, "Fulano"));
+        loan.setReturned(true);
+        loanService.update(loan);
+
+        Loan next = loanService.save(newLoan(book, "Ciclano"));
+
+        assertThat(next.getId()).isNotNull();
+        assertThat(next.getActiveBookId()).isEqualTo(book.getId());
+    }
+
+    @Test
+    @DisplayName("Emprestimo em lote e emprestimo avulso do mesmo livro devem ser serializados")
+    public void concurrentBulkAndSingleCheckoutTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 50; round++) {
+                Book book = bookRepository.save(Book.builder().title("Livro " + round).author("Fulano")
+                        .isbn("isbn-" + round).build());
+                Book other = bookRepository.save(Book.builder().title("Outro " + round).author("Fulano")
+                        .isbn("outro-" + round).build());
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<List<LoanCheckoutResultDTO>> bulk = executor.submit(() -> {
+                    start.await();
+                    return loanService.saveAll(Arrays.asList(newLoan(other, "Escola"), newLoan(book, "Escola")));
+                });
+                Future<Throwable> single = executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.save(newLoan(book, "Fulano"));
+                        return null;
+                    } catch (RuntimeException ex) {
+                        return ex;
+                    }
+                });
+                start.countDown();
+
+                List<LoanCheckoutResultDTO> bulkResults = bulk.get(30, TimeUnit.SECONDS);
+                Throwable singleResult = single.get(30, TimeUnit.SECONDS);
+                boolean bulkLoaned = bulkResults.get(1).getResult() == LoanCheckoutResultDTO.Result.LOANED;
+
+                assertThat(bulkResults.get(0).getResult()).isEqualTo(LoanCheckoutResultDTO.Result.LOANED);
+                assertThat(bulkLoaned).isNotEqualTo(singleResult == null);
+                if (singleResult != null) {
+                    assertThat(singleResult).isInstanceOf(BusinessException.class);
+                }
+                assertThat(loanRepository.findActiveBookIdsIn(Collections.singletonList(book.getId()))).hasSize(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Throwable> checkoutConcurrently(IntFunction<Book> bookFor) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Throwable>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                Book book = bookFor.apply(i);
+                String customer = "Cliente " + i;
+                Callable<Throwable> checkout = () -> {
+                    start.await();
+                    try {
+                        loanService.save(newLoan(book, customer));
+                        return null;
+                    } catch (RuntimeException ex) {
+                        return ex;
+                    }
+                };
+                futures.add(executor.submit(checkout));
+            }
+            start.countDown();
+
+            List<Throwable> results = new ArrayList<>();
+            for (Future<Throwable> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Loan newLoan(Book book, String customer) {
+        return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.henriqueAraujo.libraryapi.service;
+
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.exception.BusinessException;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
+import com.henriqueAraujo.libraryapi.service.index.AvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races returns of a book against a new checkout of it and checks that the
+ * AvailabilityIndex ends up agreeing with the database.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class LoanReturnConcurrencyTest {
+
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        // IndexLoader fills the index off the startup thread
+        for (int i = 0; i < 100 && !availabilityIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(availabilityIndex.isReady()).isTrue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("A devolucao de um emprestimo nao deve marcar como disponivel o livro emprestado logo em seguida")
+    public void returnRacingCheckoutTest() throws Exception {
+        raceReturnAndCheckout(loan -> {
+            Loan found = loanService.getById(loan.getId()).get();
+            found.setReturned(true);
+            loanService.update(found);
+        });
+    }
+
+    @Test
+    @DisplayName("A devolucao em lote nao deve marcar como disponivel o livro emprestado logo em seguida")
+    public void batchReturnRacingCheckoutTest() throws Exception {
+        raceReturnAndCheckout(loan -> loanService.returnLoans(
+                LoanReturnBatchDTO.builder().ids(Collections.singletonList(loan.getId())).build()));
+    }
+
+    /** Each round returns the book's loan while another client keeps trying to check it out. */
+    private void raceReturnAndCheckout(ReturnAction returnAction) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Book book = bookRepository.save(Book.builder().title("Livro " + round).author("Fulano")
+                        .isbn("isbn-" + round).build());
+                Loan loan = loanService.save(newLoan(book, "Fulano"));
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<?> giveBack = executor.submit(() -> {
+                    start.await();
+                    returnAction.giveBack(loan);
+                    return null;
+                });
+                Future<Loan> checkout = executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        try {
+                            return loanService.save(newLoan(book, "Ciclano"));
+                        } catch (BusinessException ex) {
+                            Thread.yield();
+                        }
+                    }
+                });
+                start.countDown();
+
+                giveBack.get(30, TimeUnit.SECONDS);
+                checkout.get(30, TimeUnit.SECONDS);
+
+                assertThat(loanRepository.findActiveBookIdsIn(Collections.singletonList(book.getId()))).hasSize(1);
+                assertThat(availabilityIndex.isLoaned(book.getId())).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Loan newLoan(Book book, String customer) {
+        return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+    }
+
+    private interface ReturnAction {
+        void giveBack(Loan loan);
+    }
+}
@@ -1,12 +1,19 @@
 package com.henriqueAraujo.libraryapi.service;
 
 
+import com.henriqueAraujo.libraryapi.api.dto.LoanCheckoutResultDTO;
 import com.henriqueAraujo.libraryapi.api.dto.LoanFilterDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnBatchDTO;
+import com.henriqueAraujo.libraryapi.api.dto.LoanReturnResultDTO;
 import com.henriqueAraujo.libraryapi.exception.BusinessException;
 import com.henriqueAraujo.libraryapi.model.entity.Book;
 import com.henriqueAraujo.libraryapi.model.entity.Loan;
 import com.henriqueAraujo.libraryapi.model.repository.LoanRepository;
 import com.henriqueAraujo.libraryapi.service.impl.LoanServiceImpl;
+import com.henriqueAraujo.libraryapi.service.index.AvailabilityIndex;
+import com.henriqueAraujo.libraryapi.service.index.OverdueTracker;
+import com.henriqueAraujo.libraryapi.service.lock.StripedLocks;
+import com.henriqueAraujo.libraryapi.service.policy.LoanPolicies;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,9 +26,11 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,12 +44,17 @@ import static org.mockito.Mockito.verify;
 public class LoanServiceTest {
 
     LoanService service;
+    LoanPolicies loanPolicies;
     @MockBean
     LoanRepository repository;
 
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.loanPolicies = new LoanPolicies();
+        loanPolicies.setCategoryDays(Collections.singletonMap("reference", 2));
+        loanPolicies.setCustomerClassDays(Collections.singletonMap("staff", 14));
+        this.service = new LoanServiceImpl(repository, new StripedLocks(16), new AvailabilityIndex(),
+                new OverdueTracker(), loanPolicies, Mockito.mock(PlatformTransactionManager.class));
 
     }
 
@@ -76,6 +90,24 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve definir a data de devolucao pela politica da categoria ou da classe do cliente")
+    public void saveLoanDueDateFromPolicyTest() {
+        LocalDate today = LocalDate.now();
+        Book reference = Book.builder().id(1L).category("REFERENCE").build();
+        Book novel = Book.builder().id(2L).category("novel").build();
+        Mockito.when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Loan byCategory = service.save(Loan.builder().book(reference).customer("Fulano").loanDate(today).build());
+        Loan byCustomerClass = service.save(Loan.builder().book(novel).customer("Fulano")
+                .customerClass("staff").loanDate(today).build());
+        Loan byDefault = service.save(Loan.builder().book(novel).customer("Fulano").loanDate(today).build());
+
+        assertThat(byCategory.getDueDate()).isEqualTo(today.plusDays(2));
+        assertThat(byCustomerClass.getDueDate()).isEqualTo(today.plusDays(14));
+        assertThat(byDefault.getDueDate()).isEqualTo(today.plusDays(4));
+    }
+
     @Test
     @DisplayName("Deve lançar erro de negocio ao salvar um  emprestimo com livro já emprestado")
     public void loanedBookSaveTest() {
@@ -143,6 +175,101 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve emprestar em lote apenas os livros disponiveis e informar os demais")
+    public void saveAllLoansTest() {
+        Book free = Book.builder().id(1L).isbn("123").build();
+        Book loaned = Book.builder().id(2L).isbn("456").build();
+        List<Loan> loans = Arrays.asList(
+                Loan.builder().book(free).customer("Escola").loanDate(LocalDate.now()).build(),
+                Loan.builder().book(loaned).customer("Escola").loanDate(LocalDate.now()).build(),
+                Loan.builder().book(free).customer("Escola").loanDate(LocalDate.now()).build());
+        Mockito.when(repository.findActiveBookIdsIn(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(2L));
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Loan> saving = invocation.getArgument(0);
+            saving.forEach(loan -> loan.setId(100L));
+            return saving;
+        });
+
+        List<LoanCheckoutResultDTO> results = service.saveAll(loans);
+
+        assertThat(results).extracting(LoanCheckoutResultDTO::getResult).containsExactly(
+                LoanCheckoutResultDTO.Result.LOANED,
+                LoanCheckoutResultDTO.Result.ALREADY_LOANED,
+                LoanCheckoutResultDTO.Result.ALREADY_LOANED);
+        assertThat(results.get(0).getId()).isEqualTo(100L);
+        assertThat(results.get(0).getDueDate()).isEqualTo(LocalDate.now().plusDays(4));
+        verify(repository).saveAll(Collections.singletonList(loans.get(0)));
+        verify(repository).flush();
+    }
+
+    @Test
+    @DisplayName("Deve devolver em lote apenas os emprestimos ativos com uma unica atualizacao")
+    public void returnLoansBatchTest() {
+        Loan active = createLoan();
+        active.setId(1L);
+        active.getBook().setId(10L);
+        Loan returned = createLoan();
+        returned.setId(2L);
+        returned.setReturned(true);
+        Loan byIsbn = createLoan();
+        byIsbn.setId(3L);
+        byIsbn.setBook(Book.builder().id(30L).isbn("999").build());
+
+        Mockito.when(repository.findWithBookByIdIn(Arrays.asList(1L, 2L, 4L, 1L)))
+                .thenReturn(Arrays.asList(active, returned));
+        Mockito.when(repository.findActiveWithBookByIsbnIn(Arrays.asList("999", "000")))
+                .thenReturn(Collections.singletonList(byIsbn));
+        Mockito.when(repository.markReturned(Arrays.asList(1L, 3L))).thenReturn(new boolean[] {true, true});
+
+        List<LoanReturnResultDTO> results = service.returnLoans(LoanReturnBatchDTO.builder()
+                .ids(Arrays.asList(1L, 2L, 4L, 1L))
+                .isbns(Arrays.asList("999", "000"))
+                .build());
+
+        assertThat(results).extracting(LoanReturnResultDTO::getResult).containsExactly(
+                LoanReturnResultDTO.Result.RETURNED,
+                LoanReturnResultDTO.Result.ALREADY_RETURNED,
+                LoanReturnResultDTO.Result.NOT_FOUND,
+                LoanReturnResultDTO.Result.ALREADY_RETURNED,
+                LoanReturnResultDTO.Result.RETURNED,
+                LoanReturnResultDTO.Result.NOT_FOUND);
+        assertThat(results.get(4).getId()).isEqualTo(3L);
+        verify(repository).markReturned(Arrays.asList(1L, 3L));
+        verify(repository, never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve informar como ja devolvido o emprestimo que outro lote devolveu antes")
+    public void returnLoansConcurrentBatchTest() {
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        availabilityIndex.markReady();
+        service = new LoanServiceImpl(repository, new StripedLocks(16), availabilityIndex,
+                new OverdueTracker(), loanPolicies, Mockito.mock(PlatformTransactionManager.class));
+        Loan first = createLoan();
+        first.setId(1L);
+        first.getBook().setId(10L);
+        Loan second = createLoan();
+        second.setId(2L);
+        second.setBook(Book.builder().id(20L).build());
+        availabilityIndex.markLoaned(10L);
+        availabilityIndex.markLoaned(20L);
+
+        Mockito.when(repository.findWithBookByIdIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(first, second));
+        Mockito.when(repository.markReturned(Arrays.asList(1L, 2L))).thenReturn(new boolean[] {true, false});
+
+        List<LoanReturnResultDTO> results = service.returnLoans(LoanReturnBatchDTO.builder()
+                .ids(Arrays.asList(1L, 2L))
+                .build());
+
+        assertThat(results).extracting(LoanReturnResultDTO::getResult).containsExactly(
+                LoanReturnResultDTO.Result.RETURNED,
+                LoanReturnResultDTO.Result.ALREADY_RETURNED);
+        assertThat(availabilityIndex.isLoaned(10L)).isFalse();
+        assertThat(availabilityIndex.isLoaned(20L)).isTrue();
+    }
+
     @Test
     @DisplayName("Deve filtrar emprestimos pelas propriedades")
     public void findLoanTest() {
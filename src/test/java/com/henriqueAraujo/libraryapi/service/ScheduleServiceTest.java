@@ -0,0 +1,183 @@
+package com.henriqueAraujo.libraryapi.service;
+
+import com.henriqueAraujo.libraryapi.config.TaskExecutors;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.entity.Loan;
+import com.henriqueAraujo.libraryapi.service.index.OverdueTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ScheduleServiceTest {
+
+    LoanService loanService;
+    EmailService emailService;
+    OverdueTracker overdueTracker;
+    ScheduleService service;
+
+    @BeforeEach
+    public void setUp() {
+        loanService = Mockito.mock(LoanService.class);
+        emailService = Mockito.mock(EmailService.class);
+        overdueTracker = new OverdueTracker();
+        service = new ScheduleService(loanService, emailService, new TaskExecutors(false), overdueTracker);
+        ReflectionTestUtils.setField(service, "message", "Atencao!");
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um unico resumo por cliente mesmo quando seus emprestimos cruzam blocos")
+    public void oneDigestPerCustomerTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        Loan a2 = lateLoan(2L, "a@email.com", "Livro 2");
+        Loan a3 = lateLoan(3L, "a@email.com", "Livro 3");
+        Loan b4 = lateLoan(4L, "b@email.com", "Livro 4");
+
+        when(loanService.getLateLoansAfter("", 0L, 2)).thenReturn(Arrays.asList(a1, a2));
+        when(loanService.getLateLoansAfter("a@email.com", 2L, 2)).thenReturn(Arrays.asList(a3, b4));
+        when(loanService.getLateLoansAfter("b@email.com", 4L, 2)).thenReturn(Collections.emptyList());
+
+        service.sendMailToLateLoans();
+
+        verify(emailService, times(1)).sendMail(argThat(text ->
+                text.contains("Livro 1") && text.contains("Livro 2") && text.contains("Livro 3")), eq("a@email.com"));
+        verify(emailService, times(1)).sendMail(contains("Livro 4"), eq("b@email.com"));
+        verify(emailService, times(2)).sendMail(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Deve retomar a partir do ultimo bloco enviado quando um envio falhar")
+    public void resumeFromCheckpointTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        Loan b2 = lateLoan(2L, "b@email.com", "Livro 2");
+        Loan c3 = lateLoan(3L, "c@email.com", "Livro 3");
+
+        when(loanService.getLateLoansAfter("", 0L, 2)).thenReturn(Arrays.asList(a1, b2));
+        when(loanService.getLateLoansAfter("b@email.com", 2L, 2)).thenReturn(Collections.singletonList(c3));
+        when(loanService.getLateLoansAfter("a@email.com", 1L, 2)).thenReturn(Arrays.asList(b2, c3));
+        when(loanService.getLateLoansAfter("c@email.com", 3L, 2)).thenReturn(new ArrayList<>());
+        doThrow(new IllegalStateException("smtp fora do ar"))
+                .doNothing()
+                .when(emailService).sendMail(anyString(), eq("b@email.com"));
+
+        service.sendMailToLateLoans();
+        service.resumeLateLoans();
+
+        verify(emailService, times(1)).sendMail(anyString(), eq("a@email.com"));
+        verify(emailService, times(2)).sendMail(anyString(), eq("b@email.com"));
+        verify(emailService, atLeast(1)).sendMail(anyString(), eq("c@email.com"));
+        verify(loanService, times(1)).getLateLoansAfter(eq("a@email.com"), eq(1L), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve notificar continuamente apenas os emprestimos vencidos do rastreador e reagenda-los")
+    public void notifyDueLoansFromTrackerTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        Loan a2 = lateLoan(2L, "a@email.com", "Livro 2");
+        Loan returned = lateLoan(3L, "b@email.com", "Livro 3");
+        returned.setReturned(true);
+        trackDue(a1, a2, returned);
+
+        service.notifyDueLoans();
+        service.sendMailToLateLoans();
+
+        verify(emailService, times(1)).sendMail(argThat(text ->
+                text.contains("Livro 1") && text.contains("Livro 2")), eq("a@email.com"));
+        verify(emailService, never()).sendMail(anyString(), eq("b@email.com"));
+        verify(loanService, never()).getLateLoansAfter(anyString(), anyLong(), anyInt());
+        assertThat(overdueTracker.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um unico resumo por cliente mesmo quando seus emprestimos vencidos cruzam blocos")
+    public void notifyDueLoansOneDigestPerCustomerTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        Loan a2 = lateLoan(2L, "a@email.com", "Livro 2");
+        Loan a3 = lateLoan(3L, "a@email.com", "Livro 3");
+        trackDue(a1, a2, a3);
+
+        service.notifyDueLoans();
+
+        verify(emailService, times(1)).sendMail(argThat(text ->
+                text.contains("Livro 1") && text.contains("Livro 2") && text.contains("Livro 3")), eq("a@email.com"));
+        verify(emailService, times(1)).sendMail(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Deve devolver ao rastreador os emprestimos cujo lembrete falhou")
+    public void notifyDueLoansRetriesFailedRemindersTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        Loan b2 = lateLoan(2L, "b@email.com", "Livro 2");
+        trackDue(a1, b2);
+        doThrow(new IllegalStateException("banco fora do ar"))
+                .when(emailService).sendMail(anyString(), eq("a@email.com"));
+
+        service.notifyDueLoans();
+
+        assertThat(overdueTracker.size()).isEqualTo(2);
+        assertThat(overdueTracker.pollDue(LocalDateTime.now().plusMinutes(2))).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Deve devolver ao rastreador os emprestimos quando eles nao puderem ser lidos")
+    public void notifyDueLoansRetriesWhenLoadFailsTest() {
+        Loan a1 = lateLoan(1L, "a@email.com", "Livro 1");
+        trackDue(a1);
+        when(loanService.getLoansByIds(anyList())).thenThrow(new IllegalStateException("banco fora do ar"));
+
+        service.notifyDueLoans();
+
+        verify(emailService, never()).sendMail(anyString(), anyString());
+        assertThat(overdueTracker.pollDue(LocalDateTime.now().plusMinutes(2))).containsExactly(1L);
+    }
+
+    /** Tracks the loans as overdue since yesterday and answers getLoansByIds with them. */
+    private void trackDue(Loan... loans) {
+        Map<Long, Loan> byId = new HashMap<>();
+        overdueTracker.beginRebuild();
+        for (Loan loan : loans) {
+            byId.put(loan.getId(), loan);
+            overdueTracker.addRebuilt(loan.getId(), loan.getCustomerEmail(), loan.getDueDate(),
+                    LocalDateTime.now().minusDays(1));
+        }
+        overdueTracker.markReady();
+        when(loanService.getLoansByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+    }
+
+    private Loan lateLoan(Long id, String email, String title) {
+        return Loan.builder()
+                .id(id)
+                .customer(email)
+                .customerEmail(email)
+                .book(Book.builder().id(id).title(title).isbn("isbn-" + id).build())
+                .loanDate(LocalDate.now().minusDays(10))
+                .dueDate(LocalDate.now().minusDays(6))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.henriqueAraujo.libraryapi.service.cache;
+
+import com.henriqueAraujo.libraryapi.LibraryApiApplication;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one database, standing in for two nodes. The
+ * scheduled poll is slowed down so the test decides when a node reads the
+ * change log.
+ */
+public class BookNearCacheMultiNodeTest {
+
+    static ConfigurableApplicationContext nodeA;
+    static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:near-cache-nodes;DB_CLOSE_DELAY=-1",
+                        "server.port=0",
+                        "application.books.cache.poll-ms=3600000")
+                .run();
+    }
+
+    @Test
+    @DisplayName("Nenhum no deve ler um livro desatualizado depois de uma atualizacao propagada")
+    public void noStaleReadsAcrossNodesTest() {
+        BookService serviceA = nodeA.getBean(BookService.class);
+        BookService serviceB = nodeB.getBean(BookService.class);
+        Long id = serviceA.save(Book.builder().title("Versao 0").author("Fulano").isbn("isbn-multi").build()).getId();
+
+        for (int version = 1; version <= 20; version++) {
+            serviceA.getById(id);
+            serviceB.getById(id);
+
+            boolean fromA = version % 2 == 1;
+            BookService writer = fromA ? serviceA : serviceB;
+            Book book = writer.getById(id).get();
+            book.setTitle("Versao " + version);
+            writer.update(book);
+            poller(fromA ? nodeB : nodeA).poll();
+
+            assertThat(serviceA.getById(id).get().getTitle()).isEqualTo("Versao " + version);
+            assertThat(serviceB.getById(id).get().getTitle()).isEqualTo("Versao " + version);
+        }
+
+        assertThat(counter(nodeB, "library.books.cache.gets", "result", "hit")).isPositive();
+        assertThat(counter(nodeB, "library.books.cache.evictions", "cause", "invalidated")).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Um livro deletado em um no nao deve ser encontrado no outro")
+    public void deleteAcrossNodesTest() {
+        BookService serviceA = nodeA.getBean(BookService.class);
+        BookService serviceB = nodeB.getBean(BookService.class);
+        Long id = serviceA.save(Book.builder().title("Livro").author("Fulano").isbn("isbn-delete").build()).getId();
+        assertThat(serviceB.getById(id)).isPresent();
+
+        serviceA.delete(serviceA.getById(id).get());
+        poller(nodeB).poll();
+
+        assertThat(serviceA.getById(id)).isEmpty();
+        assertThat(serviceB.getById(id)).isEmpty();
+    }
+
+    private static BookChangePoller poller(ConfigurableApplicationContext node) {
+        return node.getBean(BookChangePoller.class);
+    }
+
+    private static double counter(ConfigurableApplicationContext node, String name, String tag, String value) {
+        return node.getBean(MeterRegistry.class).get(name).tag(tag, value).counter().count();
+    }
+}
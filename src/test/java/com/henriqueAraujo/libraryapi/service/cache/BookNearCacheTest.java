@@ -0,0 +1,123 @@
+package com.henriqueAraujo.libraryapi.service.cache;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookNearCacheTest {
+
+    SimpleMeterRegistry registry;
+    AtomicLong now;
+    AtomicInteger loads;
+    BookNearCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        loads = new AtomicInteger();
+        cache = new BookNearCache(registry, 2, 1000, now::get);
+    }
+
+    @Test
+    @DisplayName("Deve buscar o livro uma vez e servir as leituras seguintes do cache")
+    public void hitAfterMissTest() {
+        cache.get(1L, loader());
+        Optional<Book> book = cache.get(1L, loader());
+
+        assertThat(book).get().extracting(Book::getTitle).isEqualTo("Livro 1");
+        assertThat(loads).hasValue(1);
+        assertThat(count("library.books.cache.gets", "result", "hit")).isEqualTo(1);
+        assertThat(count("library.books.cache.gets", "result", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve devolver uma copia, sem alterar o cache")
+    public void returnsCopyTest() {
+        cache.get(1L, loader());
+        cache.get(1L, loader()).get().setTitle("Alterado");
+
+        assertThat(cache.get(1L, loader()).get().getTitle()).isEqualTo("Livro 1");
+    }
+
+    @Test
+    @DisplayName("Deve remover o livro lido ha mais tempo quando passar do tamanho maximo")
+    public void evictLeastRecentlyReadTest() {
+        cache.get(1L, loader());
+        cache.get(2L, loader());
+        cache.get(1L, loader());
+        cache.get(3L, loader());
+
+        cache.get(1L, loader());
+        cache.get(2L, loader());
+
+        assertThat(loads).hasValue(4);
+        assertThat(count("library.books.cache.evictions", "cause", "size")).isEqualTo(2);
+        assertThat(registry.get("library.books.cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar de novo o livro depois do ttl")
+    public void expireAfterTtlTest() {
+        cache.get(1L, loader());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        cache.get(1L, loader());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        cache.get(1L, loader());
+
+        assertThat(loads).hasValue(2);
+        assertThat(count("library.books.cache.evictions", "cause", "expired")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar de novo o livro depois de invalidado")
+    public void invalidateTest() {
+        cache.get(1L, loader());
+        cache.onBookChanged(new BookChangedEvent(1L));
+        cache.get(1L, loader());
+
+        assertThat(loads).hasValue(2);
+        assertThat(count("library.books.cache.evictions", "cause", "invalidated")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar um livro lido enquanto ele era invalidado")
+    public void loadOverlappingInvalidationTest() {
+        cache.get(1L, id -> {
+            cache.invalidate(id);
+            return Optional.of(Book.builder().id(id).title("Antigo").build());
+        });
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(1L, loader()).get().getTitle()).isEqualTo("Livro 1");
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar livros inexistentes")
+    public void notFoundTest() {
+        cache.get(1L, id -> Optional.empty());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private Function<Long, Optional<Book>> loader() {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.of(Book.builder().id(id).title("Livro " + id).author("Fulano").isbn("isbn-" + id).build());
+        };
+    }
+
+    private double count(String name, String tag, String value) {
+        return registry.get(name).tag(tag, value).counter().count();
+    }
+}
@@ -0,0 +1,116 @@
+package com.henriqueAraujo.libraryapi.service.imports;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookImportReportDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a million books and checks that the heap does not grow with them.
+ * Takes minutes, so it only runs with {@code mvn -Pslow-tests test}. The
+ * search index is mocked so the books do not have to fit in the heap; its
+ * recorded invocations are cleared before every heap sample.
+ */
+@Tag("slow")
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.books.import.chunk-size=5000")
+public class BookImportMemoryTest {
+
+    private static final int BOOKS = 1_000_000;
+    private static final int SAMPLE_EVERY = 100_000;
+    private static final long MAX_GROWTH = 64L * 1024 * 1024;
+
+    @Autowired
+    BookImporter importer;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve importar um milhao de livros em memoria constante ignorando isbns repetidos")
+    public void importMillionBooksTest() {
+        List<Long> usedHeap = new ArrayList<>();
+
+        BookImportReportDTO report = importer.importBooks(generated(BOOKS, usedHeap));
+
+        assertThat(report.getRead()).isEqualTo(BOOKS + BOOKS / 1000);
+        assertThat(report.getImported()).isEqualTo(BOOKS);
+        assertThat(report.getDuplicates()).isEqualTo(BOOKS / 1000);
+        assertThat(report.getSkipped()).isZero();
+        assertThat(report.getRowsPerSecond()).isPositive();
+        assertThat(bookRepository.count()).isEqualTo(BOOKS);
+        assertThat(usedHeap).hasSize(BOOKS / SAMPLE_EVERY - 1);
+        assertThat(Collections.max(usedHeap) - usedHeap.get(0)).isLessThan(MAX_GROWTH);
+    }
+
+    /**
+     * Books isbn-0 .. isbn-(count-1); every 1000th row is followed by a
+     * repeat of an earlier isbn. Samples the used heap after a GC every
+     * {@link #SAMPLE_EVERY} books, the first book excluded.
+     */
+    private Iterator<Book> generated(int count, List<Long> usedHeap) {
+        return new Iterator<Book>() {
+            private int next;
+            private boolean repeat;
+
+            @Override
+            public boolean hasNext() {
+                return next < count || repeat;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int n;
+                if (repeat) {
+                    repeat = false;
+                    n = next / 2;
+                } else {
+                    n = next++;
+                    repeat = next % 1000 == 0;
+                    if (n > 0 && n % SAMPLE_EVERY == 0) {
+                        usedHeap.add(usedHeapAfterGc());
+                    }
+                }
+                return Book.builder().title("Title " + n).author("Author " + (n % 100)).isbn("isbn-" + n).build();
+            }
+        };
+    }
+
+    private long usedHeapAfterGc() {
+        Mockito.clearInvocations(searchIndex);
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
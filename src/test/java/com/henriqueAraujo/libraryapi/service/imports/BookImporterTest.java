@@ -0,0 +1,170 @@
+package com.henriqueAraujo.libraryapi.service.imports;
+
+import com.henriqueAraujo.libraryapi.api.dto.BookImportReportDTO;
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import com.henriqueAraujo.libraryapi.model.repository.BookRepository;
+import com.henriqueAraujo.libraryapi.service.index.BookSearchIndex;
+import com.henriqueAraujo.libraryapi.service.index.IsbnIndex;
+import com.henriqueAraujo.libraryapi.service.index.Isbns;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports through the real repository and database, in small chunks. The
+ * million book import is BookImportMemoryTest.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.books.import.chunk-size=" + BookImporterTest.CHUNK_SIZE)
+public class BookImporterTest {
+
+    static final int CHUNK_SIZE = 100;
+
+    @Autowired
+    BookImporter importer;
+
+    @SpyBean
+    BookRepository bookRepository;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @Autowired
+    IsbnIndex isbnIndex;
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve gravar cada bloco antes de ler o seguinte")
+    public void importCommitsEveryChunkTest() {
+        int books = CHUNK_SIZE * 2 + CHUNK_SIZE / 2;
+        List<Long> committedAtChunkStart = new ArrayList<>();
+
+        BookImportReportDTO report = importer.importBooks(generated(books, n -> {
+            if (n % CHUNK_SIZE == 0) {
+                committedAtChunkStart.add(bookRepository.count());
+            }
+        }));
+
+        assertThat(report.getImported()).isEqualTo(books);
+        assertThat(committedAtChunkStart).containsExactly(0L, (long) CHUNK_SIZE, 2L * CHUNK_SIZE);
+        verify(bookRepository, times(3)).saveAll(any());
+        assertThat(bookRepository.count()).isEqualTo(books);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar isbns ja cadastrados, repetidos no arquivo e linhas invalidas")
+    public void importDeduplicatesTest() {
+        bookRepository.save(Book.builder().title("Existente").author("Fulano").isbn("001").build());
+
+        BookImportReportDTO report = importer.importBooks(Arrays.asList(
+                Book.builder().title("Existente").author("Fulano").isbn("001").build(),
+                Book.builder().title("Novo").author("Fulano").isbn("002").build(),
+                Book.builder().title("Novo de novo").author("Fulano").isbn("002").build(),
+                Book.builder().title("Sem isbn").author("Fulano").build()).iterator());
+
+        assertThat(report.getRead()).isEqualTo(4);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isEqualTo(2);
+        assertThat(report.getInvalid()).isEqualTo(1);
+        assertThat(report.getSkipped()).isZero();
+        assertThat(bookRepository.findByIsbn("002").get().getTitle()).isEqualTo("Novo");
+    }
+
+    @Test
+    @DisplayName("Deve refazer o bloco linha a linha e contar como ignorado o isbn cadastrado no meio da importacao")
+    public void importSkipsRowsRejectedByDatabaseTest() {
+        bookRepository.save(Book.builder().title("Concorrente").author("Fulano").isbn("001").build());
+        // as if 001 was inserted by someone else after the chunk checked the database
+        doReturn(Collections.emptyList()).when(bookRepository).findExistingIsbns(any());
+
+        BookImportReportDTO report = importer.importBooks(Arrays.asList(
+                Book.builder().title("Existente").author("Fulano").isbn("001").build(),
+                Book.builder().title("Novo").author("Fulano").isbn("002").build()).iterator());
+
+        assertThat(report.getRead()).isEqualTo(2);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isZero();
+        assertThat(bookRepository.findByIsbn("001").get().getTitle()).isEqualTo("Concorrente");
+        assertThat(bookRepository.findByIsbn("002").get().getTitle()).isEqualTo("Novo");
+        verify(searchIndex, times(1)).index(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve tratar ISBN-10 e ISBN-13 do mesmo livro como repetidos, no arquivo e no acervo")
+    public void importDeduplicatesNormalizedIsbnTest() throws InterruptedException {
+        awaitIsbnIndex();
+        Book existing = bookRepository.save(Book.builder().title("Existente").author("Fulano").isbn("9780804429573").build());
+        isbnIndex.put(Isbns.toKey(existing.getIsbn()), existing.getId());
+
+        BookImportReportDTO report = importer.importBooks(Arrays.asList(
+                Book.builder().title("Existente").author("Fulano").isbn("080442957X").build(),
+                Book.builder().title("Novo").author("Fulano").isbn("978-0-306-40615-7").build(),
+                Book.builder().title("Novo de novo").author("Fulano").isbn("0306406152").build()).iterator());
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isEqualTo(2);
+        assertThat(bookRepository.count()).isEqualTo(2);
+        Book imported = bookRepository.findByIsbn("978-0-306-40615-7").get();
+        assertThat(isbnIndex.get(Isbns.toKey("0306406152"))).isEqualTo(imported.getId());
+
+        isbnIndex.remove(Isbns.toKey(existing.getIsbn()), existing.getId());
+        isbnIndex.remove(Isbns.toKey(imported.getIsbn()), imported.getId());
+    }
+
+    /** IndexLoader fills the IsbnIndex off the startup thread. */
+    private void awaitIsbnIndex() throws InterruptedException {
+        for (int i = 0; i < 100 && !isbnIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(isbnIndex.isReady()).isTrue();
+    }
+
+    /** Books isbn-0 .. isbn-(count-1), telling {@code beforeRow} the index of each row before it is read. */
+    private Iterator<Book> generated(int count, IntConsumer beforeRow) {
+        return new Iterator<Book>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int n = next++;
+                beforeRow.accept(n);
+                return Book.builder().title("Title " + n).author("Author " + (n % 100)).isbn("isbn-" + n).build();
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AvailabilityIndexTest {
+
+    AvailabilityIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new AvailabilityIndex();
+    }
+
+    @Test
+    @DisplayName("Deve marcar livros emprestados e devolvidos")
+    public void markLoanedAndReturnedTest() {
+        index.markLoaned(1L);
+        index.markLoaned(5_000_000_000L);
+        index.markReturned(1L);
+
+        assertThat(index.isLoaned(1L)).isFalse();
+        assertThat(index.isLoaned(5_000_000_000L)).isTrue();
+        assertThat(index.loanedCount()).isEqualTo(1);
+        assertThat(index.filter(Arrays.asList(1L, 2L, 5_000_000_000L), false)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Alteracoes feitas durante a reconstrucao devem prevalecer sobre o que foi lido do banco")
+    public void rebuildKeepsConcurrentUpdatesTest() {
+        index.beginRebuild();
+        index.markReturned(1L);
+        index.markLoaned(3L);
+        index.addRebuilt(Arrays.asList(1L, 2L));
+        index.markReady();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.isLoaned(1L)).isFalse();
+        assertThat(index.isLoaned(2L)).isTrue();
+        assertThat(index.isLoaned(3L)).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import com.henriqueAraujo.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        index.index(Book.builder().id(1L).title("O Senhor dos Anéis").author("J. R. R. Tolkien").build());
+        index.index(Book.builder().id(2L).title("O Hobbit").author("J. R. R. Tolkien").build());
+        index.index(Book.builder().id(3L).title("Senhora").author("José de Alencar").build());
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros por prefixo de palavra ignorando caixa e acentos")
+    public void searchByPrefixTest() {
+        assertThat(index.search("senhor", null)).containsExactly(1L, 3L);
+        assertThat(index.search("aneis", null)).containsExactly(1L);
+        assertThat(index.search(null, "tolk")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Deve exigir todas as palavras e combinar titulo e autor")
+    public void searchAllWordsTest() {
+        assertThat(index.search("o senhor", null)).containsExactly(1L);
+        assertThat(index.search("senhor", "alencar")).containsExactly(3L);
+        assertThat(index.search("hobbit", "alencar")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualizacoes e remocoes")
+    public void updateAndRemoveTest() {
+        index.index(Book.builder().id(2L).title("O Silmarillion").author("J. R. R. Tolkien").build());
+        index.remove(1L);
+
+        assertThat(index.search("hobbit", null)).isEmpty();
+        assertThat(index.search("silmarillion", null)).containsExactly(2L);
+        assertThat(index.search("senhor", null)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve manter alteracoes feitas durante a reconstrucao do indice")
+    public void rebuildKeepsConcurrentChangesTest() {
+        index.markReady();
+        index.beginRebuild();
+        index.index(Book.builder().id(2L).title("O Silmarillion").author("J. R. R. Tolkien").build());
+        index.remove(1L);
+
+        index.addRebuilt(Book.builder().id(1L).title("O Senhor dos Anéis").author("J. R. R. Tolkien").build());
+        index.addRebuilt(Book.builder().id(2L).title("O Hobbit").author("J. R. R. Tolkien").build());
+        index.addRebuilt(Book.builder().id(3L).title("Senhora").author("José de Alencar").build());
+        index.markReady();
+
+        assertThat(index.search("hobbit", null)).isEmpty();
+        assertThat(index.search("silmarillion", null)).containsExactly(2L);
+        assertThat(index.search("senhor", null)).containsExactly(3L);
+    }
+}
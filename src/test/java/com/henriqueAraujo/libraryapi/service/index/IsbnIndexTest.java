@@ -0,0 +1,129 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnIndexTest {
+
+    static final long FIRST_ISBN = 9780000000000L;
+
+    IsbnIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new IsbnIndex();
+    }
+
+    @Test
+    @DisplayName("Deve normalizar ISBN-10 e ISBN-13, com ou sem hifens, para a mesma chave")
+    public void normalizeIsbnTest() {
+        assertThat(Isbns.toKey("978-0-306-40615-7")).isEqualTo(9780306406157L);
+        assertThat(Isbns.toKey("0-306-40615-2")).isEqualTo(9780306406157L);
+        assertThat(Isbns.toKey("080442957X")).isEqualTo(9780804429573L);
+        assertThat(Isbns.toKey("979 10 90636 07 1")).isEqualTo(9791090636071L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar isbns com digito verificador errado ou fora do formato")
+    public void invalidIsbnTest() {
+        assertThat(Isbns.toKey("9780306406158")).isEqualTo(Isbns.INVALID);
+        assertThat(Isbns.toKey("0306406153")).isEqualTo(Isbns.INVALID);
+        assertThat(Isbns.toKey("1234567890128")).isEqualTo(Isbns.INVALID);
+        assertThat(Isbns.toKey("123")).isEqualTo(Isbns.INVALID);
+        assertThat(Isbns.toKey("isbn-1")).isEqualTo(Isbns.INVALID);
+        assertThat(Isbns.toKey(null)).isEqualTo(Isbns.INVALID);
+    }
+
+    @Test
+    @DisplayName("Deve responder como um mapa comum apos inclusoes e remocoes aleatorias")
+    public void randomPutAndRemoveTest() {
+        Random random = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        for (long i = 1; i <= 200_000; i++) {
+            long key = FIRST_ISBN + random.nextInt(300_000);
+            if (random.nextInt(3) == 0) {
+                Long id = expected.remove(key);
+                if (id != null) {
+                    index.remove(key, id);
+                }
+            } else {
+                assertThat(index.put(key, i)).isEqualTo(expected.getOrDefault(key, IsbnIndex.MISSING));
+                expected.putIfAbsent(key, i);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (long key = FIRST_ISBN; key < FIRST_ISBN + 300_000; key++) {
+            assertThat(index.get(key)).isEqualTo(expected.getOrDefault(key, IsbnIndex.MISSING));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve remover a chave somente enquanto ela aponta para o mesmo livro")
+    public void removeOnlySameBookTest() {
+        index.put(9780306406157L, 1L);
+        index.remove(9780306406157L, 2L);
+
+        assertThat(index.get(9780306406157L)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve passar a chave de um livro para outro, e sim informar quem a possui")
+    public void putReportsCollisionTest() {
+        assertThat(index.put(9780306406157L, 1L)).isEqualTo(IsbnIndex.MISSING);
+        assertThat(index.put(9780306406157L, 1L)).isEqualTo(IsbnIndex.MISSING);
+
+        assertThat(index.put(9780306406157L, 2L)).isEqualTo(1L);
+        assertThat(index.get(9780306406157L)).isEqualTo(1L);
+
+        index.remove(9780306406157L, 1L);
+        assertThat(index.put(9780306406157L, 2L)).isEqualTo(IsbnIndex.MISSING);
+        assertThat(index.get(9780306406157L)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Na reconstrucao o primeiro livro lido fica com a chave e o repetido e informado")
+    public void rebuildReportsCollisionTest() {
+        index.beginRebuild();
+
+        assertThat(index.addRebuilt(9780306406157L, 1L)).isEqualTo(IsbnIndex.MISSING);
+        assertThat(index.addRebuilt(9780306406157L, 2L)).isEqualTo(1L);
+        index.markReady();
+
+        assertThat(index.get(9780306406157L)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve trazer de volta um livro removido enquanto o indice era reconstruido")
+    public void rebuildKeepsLiveChangesTest() {
+        index.beginRebuild();
+        index.remove(9780306406157L, 1L);
+        index.put(9780804429573L, 3L);
+        index.addRebuilt(9780306406157L, 1L);
+        index.addRebuilt(9780804429573L, 2L);
+        index.addRebuilt(9791090636071L, 4L);
+        index.markReady();
+
+        assertThat(index.get(9780306406157L)).isEqualTo(IsbnIndex.MISSING);
+        assertThat(index.get(9780804429573L)).isEqualTo(3L);
+        assertThat(index.get(9791090636071L)).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Deve ocupar no maximo 32 MiB por milhao de livros")
+    public void memoryPerMillionBooksTest() {
+        for (long i = 0; i < 1_000_000; i++) {
+            index.put(FIRST_ISBN + i, i + 1);
+        }
+
+        assertThat(index.memoryBytes()).isLessThanOrEqualTo(32L * 1024 * 1024);
+        assertThat(index.memoryBytesPerMillion()).isLessThanOrEqualTo(32L * 1024 * 1024);
+    }
+}
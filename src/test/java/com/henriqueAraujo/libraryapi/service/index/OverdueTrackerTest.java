@@ -0,0 +1,109 @@
+package com.henriqueAraujo.libraryapi.service.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OverdueTrackerTest {
+
+    static final LocalDate LOAN_DATE = LocalDate.of(2024, 3, 1);
+    static final LocalDate DUE_DATE = LOAN_DATE.plusDays(4);
+
+    OverdueTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new OverdueTracker();
+    }
+
+    @Test
+    @DisplayName("Deve devolver o emprestimo somente no dia em que ele vence")
+    public void pollOnDueDayTest() {
+        tracker.track(1L, "a@email.com", DUE_DATE, LOAN_DATE.atStartOfDay());
+
+        assertThat(tracker.pollDue(LOAN_DATE.plusDays(3).atTime(23, 59))).isEmpty();
+        assertThat(tracker.pollDue(LOAN_DATE.plusDays(5).atStartOfDay())).containsExactly(1L);
+        assertThat(tracker.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve espalhar os lembretes dos clientes ao longo do dia de vencimento")
+    public void spreadOverTheDayTest() {
+        for (long id = 1; id <= 1000; id++) {
+            tracker.track(id, "cliente" + id + "@email.com", DUE_DATE, LOAN_DATE.atStartOfDay());
+        }
+
+        LocalDateTime dueDay = DUE_DATE.atStartOfDay();
+        int morning = tracker.pollDue(dueDay.plusHours(12)).size();
+        int afternoon = tracker.pollDue(dueDay.plusHours(24)).size();
+
+        assertThat(morning).isBetween(400, 600);
+        assertThat(morning + afternoon).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Deve reagendar para o mesmo minuto do dia seguinte e esquecer devolvidos")
+    public void rearmAndUntrackTest() {
+        LocalDateTime late = LOAN_DATE.plusDays(10).atStartOfDay();
+        tracker.track(1L, "a@email.com", DUE_DATE, late);
+        tracker.track(2L, "b@email.com", DUE_DATE, late);
+        tracker.untrack(2L);
+
+        assertThat(tracker.pollDue(late.plusDays(1))).containsExactly(1L);
+        tracker.track(1L, "a@email.com", DUE_DATE, late.plusDays(1));
+        assertThat(tracker.pollDue(late.plusDays(1))).isEmpty();
+        assertThat(tracker.pollDue(late.plusDays(2))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Alteracoes durante a reconstrucao devem prevalecer sobre o que foi lido do banco")
+    public void rebuildKeepsConcurrentUpdatesTest() {
+        LocalDateTime now = LOAN_DATE.atStartOfDay();
+        tracker.beginRebuild();
+        tracker.untrack(1L);
+        tracker.addRebuilt(1L, "a@email.com", DUE_DATE, now);
+        tracker.addRebuilt(2L, "b@email.com", DUE_DATE, now);
+        tracker.markReady();
+
+        assertThat(tracker.isReady()).isTrue();
+        assertThat(tracker.size()).isEqualTo(1);
+        assertThat(tracker.pollDue(now.plusDays(5))).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve agrupar no mesmo minuto os emprestimos vencidos de um cliente")
+    public void sameCustomerSameMinuteTest() {
+        LocalDateTime late = LOAN_DATE.plusDays(10).atStartOfDay();
+        tracker.track(1L, "a@email.com", DUE_DATE, late);
+        tracker.track(2L, "a@email.com", DUE_DATE.plusDays(2), late);
+        tracker.track(3L, "a@email.com", DUE_DATE.plusDays(12), late);
+
+        LocalDateTime minute = late.plusMinutes(OverdueTracker.minuteOfDay(0L, "a@email.com"));
+        assertThat(tracker.pollDue(minute.minusMinutes(1))).isEmpty();
+        assertThat(tracker.pollDue(minute)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(tracker.pollDue(minute.plusDays(7))).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve devolver no proximo minuto os emprestimos cujo lembrete falhou")
+    public void retryFailedReminderTest() {
+        LocalDateTime late = LOAN_DATE.plusDays(10).atStartOfDay();
+        tracker.track(1L, "a@email.com", DUE_DATE, late);
+        tracker.track(2L, "b@email.com", DUE_DATE, late);
+        LocalDateTime now = late.plusDays(1);
+        assertThat(tracker.pollDue(now)).containsExactlyInAnyOrder(1L, 2L);
+
+        tracker.track(2L, "b@email.com", DUE_DATE, now);
+        tracker.retry(Arrays.asList(1L, 2L), now);
+
+        assertThat(tracker.pollDue(now)).isEmpty();
+        assertThat(tracker.pollDue(now.plusMinutes(1))).containsExactly(1L);
+        assertThat(tracker.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,162 @@
+package com.henriqueAraujo.libraryapi.service.outbox;
+
+import com.henriqueAraujo.libraryapi.model.entity.EmailOutbox;
+import com.henriqueAraujo.libraryapi.model.repository.EmailOutboxRepository;
+import com.henriqueAraujo.libraryapi.service.EmailService;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "application.mail.outbox.poll-delay-ms=3600000",
+        "application.mail.outbox.max-attempts=2"
+})
+public class EmailDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    EmailDispatcher dispatcher;
+
+    @Autowired
+    EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve gravar o email na outbox e envia-lo pelo dispatcher")
+    public void dispatchPendingEmailTest() throws Exception {
+        emailService.sendMail("Atencao! livro atrasado", "cliente@email.com");
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+        int delivered = dispatcher.dispatch();
+
+        assertThat(delivered).isEqualTo(1);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("cliente@email.com");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("Atencao! livro atrasado");
+        assertThat(outboxRepository.findAll())
+                .extracting(EmailOutbox::getStatus)
+                .containsExactly(EmailOutbox.Status.SENT);
+    }
+
+    @Test
+    @DisplayName("Deve descartar o email quando a transacao de negocio for desfeita")
+    public void rollbackDiscardsEmailTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendMail("Atencao! livro atrasado", "cliente@email.com");
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve reagendar com backoff e desistir apos o maximo de tentativas")
+    public void retryWithBackoffTest() {
+        greenMail.stop();
+        emailService.sendMail("Atencao! livro atrasado", "cliente@email.com");
+
+        assertThat(dispatcher.dispatch()).isZero();
+        EmailOutbox retried = outboxRepository.findAll().get(0);
+        assertThat(retried.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(retried.getLastError()).isNotBlank();
+
+        retried.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(retried);
+        assertThat(dispatcher.dispatch()).isZero();
+
+        List<EmailOutbox> outbox = outboxRepository.findAll();
+        assertThat(outbox).extracting(EmailOutbox::getStatus).containsExactly(EmailOutbox.Status.FAILED);
+        assertThat(outbox).extracting(EmailOutbox::getAttempts).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar cada email uma unica vez quando dois dispatchers rodam juntos")
+    public void concurrentDispatchSendsOnceTest() throws Exception {
+        int emails = 50;
+        for (int i = 0; i < emails; i++) {
+            emailService.sendMail("Atencao! livro atrasado " + i, "cliente" + i + "@email.com");
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> awaitAndDispatch(start));
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> awaitAndDispatch(start));
+        start.countDown();
+
+        assertThat(first.get() + second.get()).isEqualTo(emails);
+        assertThat(greenMail.getReceivedMessages()).hasSize(emails);
+        assertThat(outboxRepository.findAll())
+                .extracting(EmailOutbox::getStatus)
+                .containsOnly(EmailOutbox.Status.SENT);
+    }
+
+    @Test
+    @DisplayName("Nao deve enviar email reservado por outro dispatcher ate a reserva expirar")
+    public void claimedEmailWaitsForClaimToExpireTest() {
+        emailService.sendMail("Atencao! livro atrasado", "cliente@email.com");
+        EmailOutbox email = outboxRepository.findAll().get(0);
+        email.setStatus(EmailOutbox.Status.SENDING);
+        email.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+        outboxRepository.save(email);
+
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(email);
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    private int awaitAndDispatch(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return dispatcher.dispatch();
+    }
+}
@@ -0,0 +1,26 @@
+package com.henriqueAraujo.libraryapi.support;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts how many SQL statements a call issues. Requires
+ * {@link SqlStatementRecorder#ENABLE} on the test context.
+ */
+public final class QueryCount {
+
+    private QueryCount() {
+    }
+
+    public static void assertStatements(int expected, Executable call) throws Throwable {
+        SqlStatementRecorder.clear();
+        call.execute();
+        List<String> statements = SqlStatementRecorder.statements();
+        assertThat(statements)
+                .as("SQL statements issued: %s", statements)
+                .hasSize(expected);
+    }
+}
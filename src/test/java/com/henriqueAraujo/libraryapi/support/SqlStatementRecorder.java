@@ -0,0 +1,44 @@
+package com.henriqueAraujo.libraryapi.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the SQL statements Hibernate prepares on the thread that last
+ * called {@link #clear()}, so background jobs do not leak into the count.
+ * Enable it in a test with
+ * {@code @SpringBootTest(properties = SqlStatementRecorder.ENABLE)} (or the
+ * same on {@code @DataJpaTest}).
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    public static final String ENABLE =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.henriqueAraujo.libraryapi.support.SqlStatementRecorder";
+
+    private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    private static volatile Thread recording;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recording) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    public static void clear() {
+        recording = Thread.currentThread();
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        synchronized (STATEMENTS) {
+            return new ArrayList<>(STATEMENTS);
+        }
+    }
+}